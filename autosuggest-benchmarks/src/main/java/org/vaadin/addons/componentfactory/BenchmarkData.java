@@ -0,0 +1,54 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic item lists shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    private static final String[] WORDS = {
+        "apple", "avocado", "banana", "blueberry", "cherry", "coconut", "date", "fig", "grape", "guava",
+        "kiwi", "lemon", "lime", "mango", "melon", "nectarine", "olive", "orange", "papaya", "peach",
+        "pear", "pineapple", "plum", "quince", "raspberry", "strawberry", "tangerine", "watermelon"
+    };
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Items looking like "Mango Plum 000042", always the same for a size.
+     */
+    static List<String> items(int size) {
+        Random random = new Random(size);
+        List<String> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String first = WORDS[random.nextInt(WORDS.length)];
+            String second = WORDS[random.nextInt(WORDS.length)];
+            items.add(Character.toUpperCase(first.charAt(0)) + first.substring(1) + " " + second + " " + String.format("%06d", i));
+        }
+        return items;
+    }
+}
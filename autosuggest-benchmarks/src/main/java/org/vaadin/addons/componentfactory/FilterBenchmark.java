@@ -0,0 +1,127 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Option matching: the client-side <code>_filterOptions</code> of
+ * vcf-autosuggest, with and without incremental narrowing, the
+ * {@link AutosuggestIndex} on its own, and a keystroke answered by a
+ * component filtering its adaptive items on the server.
+ * <p>
+ * The client-side filter cannot run in the JVM, so it is measured through a
+ * port that mirrors the JavaScript line by line. It has to be kept in sync
+ * with <code>_filterOptions</code> and <code>_getFilterNeedle</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilterBenchmark {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    @Param({"STARTS_WITH", "CONTAINS"})
+    public Autosuggest.SearchMatchingMode mode;
+
+    @Param({"ma", "mango p"})
+    public String query;
+
+    @Param({"false", "true"})
+    public boolean caseSensitive;
+
+    private List<Autosuggest.Option<String>> options;
+    private List<Autosuggest.Option<String>> previousResult;
+    private AutosuggestIndex<String> index;
+    private HeadlessHarness.HeadlessUI ui;
+    private Autosuggest<String> autosuggest;
+
+    @Setup
+    public void setup() {
+        AutosuggestCatalog<String> catalog = new AutosuggestCatalog<>("benchmark", BenchmarkData.items(size));
+        index = catalog.getIndex();
+        options = new ArrayList<>(catalog.getOptions().values());
+        previousResult = filterOptions(options, query.substring(0, 1));
+        HeadlessHarness harness = new HeadlessHarness();
+        ui = harness.createUI();
+        autosuggest = ui.call(() -> {
+            Autosuggest<String> created = harness.createAutosuggest(false);
+            created.setSearchMatchingMode(mode);
+            created.setCaseSensitive(caseSensitive);
+            // Always filtered on the server
+            created.setAdaptiveThresholds(0, 0);
+            created.setAdaptiveItems(catalog);
+            ui.getUI().add(created);
+            return created;
+        });
+    }
+
+    @Benchmark
+    public List<Autosuggest.Option<String>> filter() {
+        return filterOptions(options, query);
+    }
+
+    @Benchmark
+    public List<Autosuggest.Option<String>> filterNarrowed() {
+        // The previous query was the first character of this one, as when the client narrows its last result
+        return filterOptions(previousResult, query);
+    }
+
+    @Benchmark
+    public Map<String, Autosuggest.Option<String>> index() {
+        return index.search(query, mode, caseSensitive, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public Autosuggest<String> serverFiltered() {
+        // Cleared again so that every invocation queries, this measures two keystrokes
+        ui.type(autosuggest, query);
+        ui.type(autosuggest, "");
+        return autosuggest;
+    }
+
+    /**
+     * Port of <code>_filterOptions</code> and <code>_getFilterNeedle</code>,
+     * including their per-option trim and lower-casing.
+     */
+    private List<Autosuggest.Option<String>> filterOptions(List<Autosuggest.Option<String>> opts, String v) {
+        if (v == null || v.trim().isEmpty()) return opts;
+        String needle = caseSensitive ? v.trim()
+            : mode == Autosuggest.SearchMatchingMode.CONTAINS ? v.toLowerCase(Locale.ROOT) : v.trim().toLowerCase(Locale.ROOT);
+        List<Autosuggest.Option<String>> res = new ArrayList<>();
+        for (Autosuggest.Option<String> opt : opts) {
+            String searchStr = caseSensitive ? opt.getSearchStr().trim() : opt.getSearchStr().trim().toLowerCase(Locale.ROOT);
+            boolean match = mode == Autosuggest.SearchMatchingMode.CONTAINS ? searchStr.contains(needle) : searchStr.startsWith(needle);
+            if (match) res.add(opt);
+        }
+        return res;
+    }
+}
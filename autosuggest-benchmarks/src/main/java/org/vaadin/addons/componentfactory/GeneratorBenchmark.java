@@ -0,0 +1,78 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilding the options after a key, label or search string generator
+ * change, which re-creates every option from its item.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeneratorBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private Autosuggest<String> autosuggest;
+
+    private final Autosuggest.KeyGenerator<String> keyGenerator = item -> item.substring(item.length() - 6);
+    private final Autosuggest.LabelGenerator<String> labelGenerator = item -> item.toUpperCase(Locale.ROOT);
+    private final Autosuggest.SearchStringGenerator<String> searchStringGenerator = item -> item.replace(' ', '_');
+
+    @Setup
+    public void setup() {
+        autosuggest = new HeadlessHarness().createAutosuggest(false);
+        autosuggest.setItems(BenchmarkData.items(size));
+    }
+
+    @Benchmark
+    public Autosuggest<String> defaultGenerators() {
+        autosuggest.unsetLabelGenerator();
+        return autosuggest;
+    }
+
+    @Benchmark
+    public Autosuggest<String> keyGenerator() {
+        autosuggest.setKeyGenerator(keyGenerator);
+        return autosuggest;
+    }
+
+    @Benchmark
+    public Autosuggest<String> labelGenerator() {
+        autosuggest.setLabelGenerator(labelGenerator);
+        return autosuggest;
+    }
+
+    @Benchmark
+    public Autosuggest<String> searchStringGenerator() {
+        autosuggest.setSearchStringGenerator(searchStringGenerator);
+        return autosuggest;
+    }
+}
@@ -0,0 +1,180 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.vaadin.flow.component.ComponentUtil;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.function.DeploymentConfiguration;
+import com.vaadin.flow.internal.nodefeature.ElementPropertyMap;
+import com.vaadin.flow.server.Constants;
+import com.vaadin.flow.server.DefaultDeploymentConfiguration;
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.VaadinServletService;
+import com.vaadin.flow.server.VaadinSession;
+
+import java.io.Serializable;
+import java.util.Properties;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Runs {@link Autosuggest} headless, without a servlet container, browser or
+ * frontend bundle, for the benchmarks and the load simulator. The template
+ * is provided by the {@link HeadlessTemplateParser} of the add-on's test jar.
+ * <p>
+ * Client round trips are emulated with Flow internals
+ * ({@link ElementPropertyMap#deferredUpdateFromClient(String, Serializable)}
+ * and the {@link UI#getInternals() UI internals}), which are not supported
+ * API and may need adjusting when Flow is upgraded.
+ */
+final class HeadlessHarness {
+
+    private final VaadinService service;
+
+    HeadlessHarness() {
+        Properties properties = new Properties();
+        properties.setProperty(Constants.SERVLET_PARAMETER_PRODUCTION_MODE, "true");
+        properties.setProperty(Constants.SERVLET_PARAMETER_COMPATIBILITY_MODE, "false");
+        DeploymentConfiguration configuration = new DefaultDeploymentConfiguration(HeadlessHarness.class, properties);
+        service = new VaadinServletService(null, configuration);
+    }
+
+    /**
+     * Creates a component, not attached to any UI.
+     */
+    <T> Autosuggest<T> createAutosuggest(boolean lightweight) {
+        VaadinService previous = VaadinService.getCurrent();
+        VaadinService.setCurrent(service);
+        try {
+            return new Autosuggest<>(new HeadlessTemplateParser(), false, lightweight);
+        } finally {
+            VaadinService.setCurrent(previous);
+        }
+    }
+
+    /**
+     * Creates a session with one UI.
+     */
+    HeadlessUI createUI() {
+        return new HeadlessUI();
+    }
+
+    /**
+     * A session with one UI, accessed the way requests from the client are
+     * handled.
+     */
+    final class HeadlessUI {
+
+        private final HeadlessSession session = new HeadlessSession(service);
+        private final UI ui = new UI();
+
+        private HeadlessUI() {
+            run(() -> ui.getInternals().setSession(session));
+        }
+
+        UI getUI() {
+            return ui;
+        }
+
+        /**
+         * Runs the task with the session locked and the current service,
+         * session and UI set, then builds the response for the client and
+         * discards it.
+         */
+        <R> R call(Supplier<R> task) {
+            VaadinService.setCurrent(service);
+            VaadinSession.setCurrent(session);
+            UI.setCurrent(ui);
+            session.lock();
+            try {
+                R result = task.get();
+                flushResponse();
+                return result;
+            } finally {
+                session.unlock();
+                UI.setCurrent(null);
+                VaadinSession.setCurrent(null);
+                VaadinService.setCurrent(null);
+            }
+        }
+
+        void run(Runnable task) {
+            call(() -> {
+                task.run();
+                return null;
+            });
+        }
+
+        /**
+         * Handles a keystroke in the component the way the client reports it:
+         * input value update, eager input event and, in lazy mode, text field
+         * value change.
+         */
+        void type(Autosuggest<?> autosuggest, String value) {
+            run(() -> {
+                updateFromClient(autosuggest.getElement(), "inputValue", value);
+                ComponentUtil.fireEvent(autosuggest, new Autosuggest.EagerInputChangeEvent(autosuggest, true, value));
+                if (Boolean.TRUE.equals(autosuggest.isLazy())) {
+                    updateFromClient(autosuggest.getTextField().getElement(), "value", value);
+                }
+            });
+        }
+
+        private void flushResponse() {
+            ui.getInternals().getStateTree().runExecutionsBeforeClientResponse();
+            ui.getInternals().dumpPendingJavaScriptInvocations();
+            ui.getInternals().getStateTree().collectChanges(change -> {
+            });
+        }
+    }
+
+    private static void updateFromClient(com.vaadin.flow.dom.Element element, String property, Serializable value) {
+        try {
+            element.getNode().getFeature(ElementPropertyMap.class).deferredUpdateFromClient(property, value).run();
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot update " + property + " from the client", e);
+        }
+    }
+
+    /**
+     * Session usable without a servlet container.
+     */
+    private static class HeadlessSession extends VaadinSession {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        HeadlessSession(VaadinService service) {
+            super(service);
+            lock.lock();
+            try {
+                setConfiguration(service.getDeploymentConfiguration());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public Lock getLockInstance() {
+            return lock;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looking an option up by label, as done on every lazy input change, compared
+ * with a lookup by key.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemLookupBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private Autosuggest<String> autosuggest;
+    private String middleLabel;
+    private String middleKey;
+
+    @Setup
+    public void setup() {
+        List<String> list = BenchmarkData.items(size);
+        autosuggest = new HeadlessHarness().createAutosuggest(false);
+        autosuggest.setItems(list);
+        middleLabel = list.get(size / 2);
+        middleKey = middleLabel;
+    }
+
+    @Benchmark
+    public Optional<Autosuggest.Option<String>> getItemForLabel() {
+        return autosuggest.getItemForLabel(middleLabel);
+    }
+
+    @Benchmark
+    public Optional<Autosuggest.Option<String>> getItemForMissingLabel() {
+        return autosuggest.getItemForLabel("no such label");
+    }
+
+    @Benchmark
+    public Autosuggest.Option<String> getItemForKey() {
+        return autosuggest.getItems().get(middleKey);
+    }
+}
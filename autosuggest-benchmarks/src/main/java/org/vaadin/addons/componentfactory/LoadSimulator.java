@@ -0,0 +1,221 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.VaadinSession;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Headless load simulation of many users typing into {@link Autosuggest}.
+ * <p>
+ * Each simulated user has its own {@link VaadinSession}, {@link UI} and
+ * component, created without a servlet container or browser, and replays
+ * keystroke traces on its own thread: for every keystroke the input value is
+ * updated the way the client does it (eager input event and text field
+ * value change), and the pending client response is built and discarded.
+ * The report gives the p50/p99 server time per keystroke, the heap retained
+ * per session and the provider throughput.
+ * <p>
+ * Options, all optional:
+ * <ul>
+ * <li><code>--users=100</code> concurrent users</li>
+ * <li><code>--items=10000</code> size of the generated item list</li>
+ * <li><code>--mode=lazy</code> <code>lazy</code> (synthetic provider),
+ * <code>eager</code> (items set on every component) or
+ * <code>catalog</code> (one shared catalog)</li>
+ * <li><code>--latency-ms=5</code> synthetic provider latency</li>
+ * <li><code>--results=50</code> maximum results of the synthetic provider</li>
+ * <li><code>--think-ms=0</code> pause between keystrokes</li>
+ * <li><code>--rounds=5</code> times each user replays the traces</li>
+ * <li><code>--lightweight=false</code> creates the components in lightweight
+ * mode</li>
+ * <li><code>--trace=file</code> words to type, one per line, each typed one
+ * character at a time; generated from the items when omitted</li>
+ * </ul>
+ * Users run on platform threads, one per user, as the add-on targets Java 8.
+ * The sessions are emulated with {@link HeadlessHarness}.
+ */
+public class LoadSimulator {
+
+    private final int users;
+    private final int itemCount;
+    private final String mode;
+    private final long latencyNanos;
+    private final int maxResults;
+    private final long thinkMillis;
+    private final int rounds;
+    private final boolean lightweight;
+    private final List<String> traces;
+
+    private final List<String> items;
+    private final AutosuggestCatalog<String> catalog;
+    private final HeadlessHarness harness = new HeadlessHarness();
+    private final LongAdder providerCalls = new LongAdder();
+
+    LoadSimulator(Map<String, String> options) throws IOException {
+        users = Integer.parseInt(options.getOrDefault("users", "100"));
+        itemCount = Integer.parseInt(options.getOrDefault("items", "10000"));
+        mode = options.getOrDefault("mode", "lazy");
+        latencyNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(options.getOrDefault("latency-ms", "5")));
+        maxResults = Integer.parseInt(options.getOrDefault("results", "50"));
+        thinkMillis = Long.parseLong(options.getOrDefault("think-ms", "0"));
+        rounds = Integer.parseInt(options.getOrDefault("rounds", "5"));
+        lightweight = Boolean.parseBoolean(options.getOrDefault("lightweight", "false"));
+
+        items = BenchmarkData.items(itemCount);
+        catalog = new AutosuggestCatalog<>("load-simulation", items);
+        traces = options.containsKey("trace")
+            ? Files.readAllLines(Paths.get(options.get("trace")), StandardCharsets.UTF_8).stream()
+                .filter(line -> !line.trim().isEmpty()).collect(Collectors.toList())
+            : generateTraces();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new LoadSimulator(options).run();
+    }
+
+    void run() throws Exception {
+        long heapBefore = usedHeap();
+        List<SimulatedUser> simulatedUsers = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) simulatedUsers.add(new SimulatedUser(i));
+        long heapIdle = usedHeap();
+
+        ExecutorService executor = Executors.newFixedThreadPool(users);
+        long start = System.nanoTime();
+        List<Future<long[]>> results = new ArrayList<>(users);
+        for (SimulatedUser user : simulatedUsers) results.add(executor.submit(user::replay));
+        List<long[]> timings = new ArrayList<>(users);
+        for (Future<long[]> result : results) timings.add(result.get());
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        long heapAfter = usedHeap();
+
+        long[] all = timings.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        double seconds = elapsed / 1e9;
+        System.out.printf("Mode %s%s, %d users, %d items, %d keystrokes in %.1f s%n", mode, lightweight ? " (lightweight)" : "", users, itemCount, all.length, seconds);
+        System.out.printf("Server time per keystroke: p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+            percentile(all, 0.50) / 1e6, percentile(all, 0.99) / 1e6, all.length == 0 ? 0 : all[all.length - 1] / 1e6);
+        System.out.printf("Keystrokes per second: %.0f%n", all.length / seconds);
+        System.out.printf("Provider calls per second: %.0f%n", providerCalls.sum() / seconds);
+        System.out.printf("Heap per session: %.1f KiB after creation, %.1f KiB after replay%n",
+            (heapIdle - heapBefore) / 1024.0 / users, (heapAfter - heapBefore) / 1024.0 / users);
+        // Keeps the sessions reachable until the heap was measured
+        simulatedUsers.clear();
+    }
+
+    private class SimulatedUser {
+
+        private final HeadlessHarness.HeadlessUI ui = harness.createUI();
+        private final Autosuggest<String> autosuggest;
+        private final Random random;
+
+        SimulatedUser(int index) {
+            random = new Random(index);
+            autosuggest = ui.call(() -> {
+                Autosuggest<String> created = harness.createAutosuggest(lightweight);
+                switch (mode) {
+                    case "eager":
+                        created.setItems(items);
+                        break;
+                    case "catalog":
+                        created.setItems(catalog);
+                        break;
+                    default:
+                        created.setLazy(true);
+                        created.setLazyProviderSimple(LoadSimulator.this::provide);
+                }
+                ui.getUI().add(created);
+                return created;
+            });
+        }
+
+        long[] replay() {
+            List<Long> timings = new ArrayList<>();
+            for (int round = 0; round < rounds; round++) {
+                String word = traces.get(random.nextInt(traces.size()));
+                for (int length = 1; length <= word.length(); length++) {
+                    timings.add(keystroke(word.substring(0, length)));
+                    if (thinkMillis > 0) LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(thinkMillis));
+                }
+                timings.add(keystroke(""));
+            }
+            return timings.stream().mapToLong(Long::longValue).toArray();
+        }
+
+        /**
+         * Handles one keystroke the way a request from the client would, and
+         * returns the time spent.
+         */
+        private long keystroke(String value) {
+            long start = System.nanoTime();
+            ui.type(autosuggest, value);
+            return System.nanoTime() - start;
+        }
+    }
+
+    private List<String> provide(String query) {
+        providerCalls.increment();
+        if (latencyNanos > 0) LockSupport.parkNanos(latencyNanos);
+        return new ArrayList<>(catalog.getIndex().search(query, Autosuggest.SearchMatchingMode.STARTS_WITH, false, maxResults).keySet());
+    }
+
+    private List<String> generateTraces() {
+        Random random = new Random(42);
+        List<String> generated = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String item = items.get(random.nextInt(items.size()));
+            generated.add(item.substring(0, Math.min(item.length(), 3 + random.nextInt(6))));
+        }
+        return generated;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,108 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import elemental.json.JsonArray;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-side cost of setting items: building the options and their
+ * client-side payload, for owned items and for a shared catalog, on a
+ * detached component and on one attached to a UI, where the response to the
+ * client is built as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SetItemsBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private List<String> items;
+    private AutosuggestCatalog<String> catalog;
+    private Autosuggest<String> detached;
+    private HeadlessHarness.HeadlessUI ui;
+    private Autosuggest<String> attached;
+
+    @Setup
+    public void setup() {
+        items = BenchmarkData.items(size);
+        catalog = new AutosuggestCatalog<>("benchmark", items);
+        HeadlessHarness harness = new HeadlessHarness();
+        detached = harness.createAutosuggest(false);
+        detached.setItems(items);
+        ui = harness.createUI();
+        attached = ui.call(() -> {
+            Autosuggest<String> autosuggest = harness.createAutosuggest(false);
+            ui.getUI().add(autosuggest);
+            return autosuggest;
+        });
+    }
+
+    @Benchmark
+    public Autosuggest<String> setItems() {
+        detached.setItems(items);
+        return detached;
+    }
+
+    @Benchmark
+    public Autosuggest<String> setItemsAttached() {
+        return ui.call(() -> {
+            attached.setItems(items);
+            return attached;
+        });
+    }
+
+    @Benchmark
+    public Autosuggest<String> setCatalogAttached() {
+        return ui.call(() -> {
+            attached.setItems(catalog);
+            return attached;
+        });
+    }
+
+    @Benchmark
+    public AutosuggestCatalog<String> buildCatalog() {
+        return new AutosuggestCatalog<>("benchmark", items);
+    }
+
+    @Benchmark
+    public JsonArray payload() {
+        return Autosuggest.toJsonArray(detached.getItems().values());
+    }
+
+    @Benchmark
+    public String payloadJson() {
+        return Autosuggest.toJsonArray(detached.getItems().values()).toJson();
+    }
+
+    @Benchmark
+    public long estimatePayload() {
+        return AutosuggestCatalog.estimatePayloadBytes(catalog.getOptions().values());
+    }
+}
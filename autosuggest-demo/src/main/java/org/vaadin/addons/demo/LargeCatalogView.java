@@ -0,0 +1,243 @@
+package org.vaadin.addons.demo;
+
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.radiobutton.RadioButtonGroup;
+import com.vaadin.flow.component.textfield.IntegerField;
+import com.vaadin.flow.router.Route;
+import org.vaadin.addons.componentfactory.Autosuggest;
+import org.vaadin.addons.componentfactory.AutosuggestCatalog;
+import org.vaadin.addons.componentfactory.AutosuggestMetrics;
+import org.vaadin.addons.componentfactory.KeystrokeTracer;
+import org.vaadin.addons.componentfactory.LatencyHistogram;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Large catalog scenario for profiling and comparing the modes of the
+ * component: generated catalogs of 10k, 100k or 1M items, used eagerly
+ * (filtered in the browser), lazily (through a synthetic provider with
+ * configurable latency and jitter) or server-filtered (adaptive items
+ * answered from the catalog index), with live timing and payload readouts.
+ */
+@Route(value = "large-catalog")
+public class LargeCatalogView extends VerticalLayout {
+
+    private static final String EAGER = "Eager";
+    private static final String LAZY = "Lazy";
+    private static final String SERVER_FILTERED = "Server-filtered";
+    private static final int LAZY_RESULTS = 100;
+
+    // Generated once per size and shared by all sessions, like a product catalog would be
+    private static final Map<Integer, List<String>> ITEMS = new ConcurrentHashMap<>();
+    private static final Map<Integer, AutosuggestCatalog<String>> CATALOGS = new ConcurrentHashMap<>();
+
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ra", "ven", "to", "sa", "dri", "el", "mon", "ta", "ri", "no", "bel", "cu", "sta"};
+
+    private final RadioButtonGroup<Integer> size = new RadioButtonGroup<>();
+    private final RadioButtonGroup<String> mode = new RadioButtonGroup<>();
+    private final IntegerField latency = new IntegerField("Provider latency (ms)");
+    private final IntegerField jitter = new IntegerField("Provider jitter (ms)");
+
+    private final VerticalLayout target = new VerticalLayout();
+    private final Span setupReadout = new Span();
+    private final Span queryReadout = new Span();
+    private final Span latencyReadout = new Span();
+
+    private final ReadoutMetrics metrics = new ReadoutMetrics();
+    private final KeystrokeTracer tracer = new KeystrokeTracer();
+    private Autosuggest<String> autosuggest;
+
+    public LargeCatalogView() {
+        setWidthFull();
+
+        size.setLabel("Catalog size");
+        size.setItems(10_000, 100_000, 1_000_000);
+        size.setItemLabelGenerator(value -> String.format("%,d", value));
+        size.setValue(10_000);
+
+        mode.setLabel("Mode");
+        mode.setItems(EAGER, LAZY, SERVER_FILTERED);
+        mode.setValue(LAZY);
+
+        latency.setValue(50);
+        latency.setMin(0);
+        latency.setHasControls(true);
+        jitter.setValue(20);
+        jitter.setMin(0);
+        jitter.setHasControls(true);
+
+        Button apply = new Button("Apply", event -> rebuild());
+        Button reset = new Button("Reset readouts", event -> {
+            tracer.reset();
+            metrics.reset();
+            updateReadouts();
+        });
+
+        HorizontalLayout settings = new HorizontalLayout(size, mode, latency, jitter);
+        settings.setDefaultVerticalComponentAlignment(Alignment.BASELINE);
+        add(new Span("Large catalog scenario. Latency and jitter apply to the synthetic lazy provider only, "
+            + "server-filtered mode answers from the catalog index."));
+        add(settings, new HorizontalLayout(apply, reset));
+        add(target, setupReadout, queryReadout, latencyReadout);
+
+        rebuild();
+    }
+
+    private void rebuild() {
+        if (autosuggest != null) target.remove(autosuggest);
+        tracer.reset();
+        metrics.reset();
+
+        long start = System.nanoTime();
+        List<String> items = ITEMS.computeIfAbsent(size.getValue(), LargeCatalogView::generateItems);
+        long generated = System.nanoTime() - start;
+
+        autosuggest = new Autosuggest<>();
+        autosuggest.setMetrics(metrics, "large-catalog");
+        autosuggest.setTracing(tracer);
+        autosuggest.setPlaceholder("Search " + String.format("%,d", items.size()) + " items ...");
+        autosuggest.getTextField().setWidth("400px");
+        // Runs after the component's own trace listener, once the keystroke is recorded
+        autosuggest.getElement().addEventListener("vcf-autosuggest-trace", event -> updateReadouts());
+
+        start = System.nanoTime();
+        switch (mode.getValue()) {
+            case EAGER:
+                autosuggest.setItems(items);
+                break;
+            case SERVER_FILTERED:
+                AutosuggestCatalog<String> catalog = CATALOGS.computeIfAbsent(size.getValue(),
+                    value -> new AutosuggestCatalog<>("large-catalog-" + value, ITEMS.get(value)));
+                autosuggest.setAdaptiveItems(catalog);
+                break;
+            default:
+                autosuggest.setLazy(true);
+                autosuggest.setLazyProviderSimple(query -> search(items, query));
+        }
+        long setup = System.nanoTime() - start;
+        // Added after the provider's listener, so it runs once the query is answered
+        autosuggest.addLazyDataRequestListener(event -> updateReadouts());
+        target.add(autosuggest);
+
+        setupReadout.setText(String.format("Items available in %.1f ms, component set up in %.1f ms, initial payload %s",
+            generated / 1e6, setup / 1e6, formatBytes(metrics.payloadBytes)));
+        updateReadouts();
+    }
+
+    private List<String> search(List<String> items, String query) {
+        int delay = value(latency);
+        int spread = value(jitter);
+        if (spread > 0) delay = Math.max(0, delay + ThreadLocalRandom.current().nextInt(-spread, spread + 1));
+        try { Thread.sleep(delay); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+
+        // The items are sorted ignoring case, so the matches of a prefix are contiguous
+        String prefix = query == null ? "" : query.trim();
+        int index = Collections.binarySearch(items, prefix, String.CASE_INSENSITIVE_ORDER);
+        if (index < 0) index = -index - 1;
+        List<String> result = new ArrayList<>();
+        for (; index < items.size() && result.size() < LAZY_RESULTS; index++) {
+            String item = items.get(index);
+            if (!item.regionMatches(true, 0, prefix, 0, prefix.length())) break;
+            result.add(item);
+        }
+        return result;
+    }
+
+    private void updateReadouts() {
+        queryReadout.setText(String.format("Last response: %d options, payload %s, provider %.1f ms, set items %.1f ms, lazy cache %d hits / %d misses",
+            metrics.itemCount, formatBytes(metrics.payloadBytes), metrics.providerNanos / 1e6, metrics.setItemsNanos / 1e6,
+            metrics.cacheHits, metrics.cacheMisses));
+        latencyReadout.setText(String.format("Per keystroke (p50 / p99 ms): server %s, client render %s, total %s",
+            percentiles(tracer.getHistogram(KeystrokeTracer.Phase.LAZY_REQUEST)),
+            percentiles(tracer.getHistogram(KeystrokeTracer.Phase.CLIENT_RENDER)),
+            percentiles(tracer.getHistogram(KeystrokeTracer.Phase.TOTAL))));
+    }
+
+    private static String percentiles(LatencyHistogram histogram) {
+        if (histogram.getCount() == 0) return "-";
+        return String.format("%.1f / %.1f", histogram.getPercentileMillis(0.5), histogram.getPercentileMillis(0.99));
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format("%.1f KiB", bytes / 1024.0);
+        return String.format("%.1f MiB", bytes / (1024.0 * 1024));
+    }
+
+    private static int value(IntegerField field) {
+        return field.getValue() == null ? 0 : Math.max(0, field.getValue());
+    }
+
+    private static List<String> generateItems(int size) {
+        Random random = new Random(size);
+        List<String> items = new ArrayList<>(size);
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            name.setLength(0);
+            int syllables = 2 + random.nextInt(3);
+            for (int s = 0; s < syllables; s++) name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+            // Numbered so that the labels, used as keys, are unique
+            items.add(name.append(' ').append(i).toString());
+        }
+        items.sort(String.CASE_INSENSITIVE_ORDER);
+        return Collections.unmodifiableList(items);
+    }
+
+    /**
+     * Keeps the latest measurements of the component for the readouts.
+     */
+    private static class ReadoutMetrics implements AutosuggestMetrics, Serializable {
+        private long providerNanos;
+        private long setItemsNanos;
+        private long payloadBytes;
+        private int itemCount;
+        private int cacheHits;
+        private int cacheMisses;
+
+        @Override
+        public void recordProviderLatency(String componentId, long nanos) {
+            providerNanos = nanos;
+        }
+
+        @Override
+        public void recordCacheHit(String componentId) {
+            cacheHits++;
+        }
+
+        @Override
+        public void recordCacheMiss(String componentId) {
+            cacheMisses++;
+        }
+
+        @Override
+        public void recordItemCount(String componentId, int count) {
+            itemCount = count;
+        }
+
+        @Override
+        public void recordPayloadBytes(String componentId, long bytes) {
+            payloadBytes = bytes;
+        }
+
+        @Override
+        public void recordSetItemsTime(String componentId, long nanos) {
+            setItemsNanos = nanos;
+        }
+
+        void reset() {
+            providerNanos = 0;
+            setItemsNanos = 0;
+            payloadBytes = 0;
+            itemCount = 0;
+            cacheHits = 0;
+            cacheMisses = 0;
+        }
+    }
+}
@@ -31,16 +31,39 @@ import com.vaadin.flow.component.orderedlayout.FlexLayout;
 import com.vaadin.flow.component.polymertemplate.EventHandler;
 import com.vaadin.flow.component.polymertemplate.Id;
 import com.vaadin.flow.component.polymertemplate.PolymerTemplate;
+import com.vaadin.flow.component.polymertemplate.TemplateParser;
 import com.vaadin.flow.component.textfield.TextField;
 import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.dom.Element;
 import com.vaadin.flow.dom.Style;
 import com.vaadin.flow.dom.ThemeList;
+import com.vaadin.flow.function.SerializableFunction;
+import com.vaadin.flow.server.Command;
+import com.vaadin.flow.server.VaadinSession;
 import com.vaadin.flow.shared.Registration;
 import com.vaadin.flow.templatemodel.TemplateModel;
-
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.JsonType;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.ref.SoftReference;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Server-side component for the <code>vcf-autosuggest</code> element.
@@ -54,8 +77,8 @@ import java.util.stream.Collectors;
 @Tag("vcf-autosuggest")
 @NpmPackage(value = "@vaadin/vaadin-element-mixin", version = "21.0.5")
 @NpmPackage(value = "@vaadin-component-factory/vcf-autosuggest", version = "1.1.6")
-@JsModule("@vaadin-component-factory/vcf-autosuggest/src/vcf-autosuggest.js")
-//@JsModule("./vcf-autosuggest.js")
+// The web component ships with the add-on, the npm package provides its dependencies and styles
+@JsModule("./vcf-autosuggest.js")
 @CssImport(value = "@vaadin-component-factory/vcf-autosuggest/styles/style.css")
 public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTemplateModel>
     implements HasTheme, HasSize, Focusable<Autosuggest<T>>, HasValidation {
@@ -65,7 +88,8 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
      * vcf-autosuggest.html
      */
     public interface AutosuggestTemplateModel extends TemplateModel {
-        class FOption {
+        // Serializable so that items, cached results and catalogs are serialized with the session
+        class FOption implements Serializable {
             String key;
             String label;
             String searchStr;
@@ -86,8 +110,6 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
 
         String getInputValue();
         String getSelectedValue();
-        List<FOption> getOptions();
-        List<FOption> getOptionsForWhenValueIsNull();
         String getPlaceholder();
         Boolean getOpenDropdownOnClick();
         Boolean getReadOnly();
@@ -103,9 +125,11 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
         String getCustomItemTemplate();
         Boolean getOpened();
         Integer getMinimumInputLengthToPerformLazyQuery();
+        Integer getVirtualizationThreshold();
+        Integer getFilterWorkerThreshold();
+        Integer getLazyCacheSize();
+        Boolean getPartialResults();
         void setLoading(Boolean loading);
-        void setOptions(List<FOption> options);
-        void setOptionsForWhenValueIsNull(List<FOption> options);
         void setPlaceholder(String placeholder);
         void setOpenDropdownOnClick(Boolean openDropdownOnClick);
         void setReadOnly(Boolean readOnly);
@@ -120,9 +144,14 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
         void setCustomItemTemplate(String tpl);
         void setOpened(Boolean v);
         void setMinimumInputLengthToPerformLazyQuery(Integer minL);
+        void setVirtualizationThreshold(Integer threshold);
+        void setFilterWorkerThreshold(Integer threshold);
+        void setLazyCacheSize(Integer size);
+        void setPartialResults(Boolean partialResults);
+        void setTracing(Boolean tracing);
     }
 
-    class Option extends AutosuggestTemplateModel.FOption {
+    static class Option<T> extends AutosuggestTemplateModel.FOption {
         T item;
 
         public Option(String key, String label, String searchStr,T item) {
@@ -144,6 +173,10 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
         Map<String, T> refresh(String searchQ);
     }
 
+    public interface LazyProviderFunctionStream<T> extends LazyProviderFunction<T> {
+        Stream<T> refresh(String searchQ);
+    }
+
     public interface KeyGenerator<T> {
         String generate(T obj);
     }
@@ -156,14 +189,24 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
         String generate(T obj);
     }
 
+    private static final int MAX_POPULAR_RANKED_KEYS = 100;
+    // Also the fallbacks of the overlay messages in vcf-autosuggest.js
+    static final String DEFAULT_NO_RESULTS_MSG = "No results";
+    static final String DEFAULT_INPUT_LENGTH_BELOW_MINIMUM_MSG = "Please keep typing to trigger search ...";
+
     private boolean showClearButton = true;
     public void setShowClearButton(Boolean v) { this.showClearButton = v; }
 
-    private Map<String, Option> items = new HashMap<>();
-    public Map<String, Option> getItems() { return this.items; }
+    // Serialized by writeObject, unless compact serialization is enabled
+    private transient Map<String, Option<T>> items = new HashMap<>();
+    public Map<String, Option<T>> getItems() { return this.items; }
 
-    private Map<String, Option> itemsForWhenValueIsNull = new HashMap<>();
-    public Map<String, Option> getItemsForWhenValueIsNull() { return this.itemsForWhenValueIsNull; }
+    private Map<String, Option<T>> itemsForWhenValueIsNull = new HashMap<>();
+    public Map<String, Option<T>> getItemsForWhenValueIsNull() { return this.itemsForWhenValueIsNull; }
+
+    private AutosuggestCatalog<T> catalog = null;
+    private AutosuggestCatalogSource<T> catalogSource = null;
+    private Registration catalogSourceRegistration = null;
 
     @Id
     private TextField textField;
@@ -182,11 +225,76 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
     private FlexLayout inputPrefix;
     private FlexLayout inputSuffix;
     private Button clearButton;
+    private boolean placeClearButtonFirst;
+    private boolean lightweight;
 
     private Registration inputTextChangeEvent;
     private Registration selectionEvent;
     private Registration lazyDataRequestEventH;
 
+    // Client commands collected during a request and sent once before the response
+    private boolean refreshPending = false;
+    private Boolean loadingPending = null;
+    private boolean clientUpdateScheduled = false;
+    private boolean lazyCacheClearPending = false;
+    private String lazyResultToStore = null;
+    private transient JsonArray optionsToSend = null;
+    private transient JsonArray optionsToAppend = null;
+    private boolean optionsPropertyStale = false;
+
+    private transient LazyQueryCache<T> lazyCache = null;
+    private String lazyQueryInFlight = null;
+
+    private SerializableFunction<String, Map<String, Option<T>>> lazyOptionsProvider = null;
+    private final AtomicLong lazyGeneration = new AtomicLong();
+    private long lazyLatencyBudgetMillis = 0;
+    private transient Executor lazyExecutor = null;
+    private LazyCircuitBreaker circuitBreaker = null;
+    private String coalescingProviderId = null;
+    private transient LazyResultCache resultCache = null;
+    private String resultCacheNamespace = null;
+    private long resultCacheTimeoutMillis = 100;
+    private TokenBucket componentRateLimit = null;
+    private boolean throttled = false;
+    private String throttledQuery = null;
+    private boolean throttleRetryScheduled = false;
+    private boolean stale = false;
+    private String lastLazyQuery = null;
+    private transient Map<String, Option<T>> lastLazyOptions = null;
+    private boolean compactSerialization = false;
+    private static volatile AutosuggestMetrics defaultMetrics = AutosuggestMetrics.NOOP;
+    private transient AutosuggestMetrics metrics = null;
+    private String metricsId = "autosuggest";
+    private transient KeystrokeTracer tracer = null;
+    private Registration tracingRegistration = null;
+    private int tracedSeq = 0;
+    private long tracedStart = 0;
+    private boolean traceResponsePending = false;
+    private String frecencyNamespace = null;
+    private int frecencyEmptyInputItems = 0;
+    private int frecencyMaxEntries = 64;
+    private long frecencyHalfLifeMillis = TimeUnit.DAYS.toMillis(14);
+    private Registration frecencyRegistration = null;
+    private transient PopularityTracker popularityTracker = null;
+    private String popularityNamespace = null;
+    private int popularityEmptyInputItems = 0;
+    private long popularityVersion = -1;
+    private Registration popularityRegistration = null;
+    private transient boolean itemsRestorePending = false;
+    private DetachPolicy detachPolicy = DetachPolicy.KEEP;
+    private boolean lazyDataReleased = false;
+    private transient SoftReference<ReleasedLazyData<T>> releasedLazyData = null;
+    private int prefetchQueries = 0;
+    private int prefetchSessionConcurrency = 2;
+    private transient Executor prefetchExecutor = null;
+
+    private AutosuggestCatalog<T> adaptiveCatalog = null;
+    private boolean adaptiveCatalogOwned = false;
+    private int adaptiveMaxEagerItems = 5000;
+    private long adaptiveMaxEagerPayloadBytes = 512 * 1024;
+    private int serverFilterLimit = 100;
+    private boolean serverSideFiltering = false;
+
     /**
      * Constructor that sets the maximum number of displayed options.
      *
@@ -205,22 +313,110 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
      * Default constructor.
      */
     public Autosuggest(boolean placeClearButtonFirst) {
+        init(placeClearButtonFirst, false);
+    }
+
+    /**
+     * Creates the component, optionally in lightweight mode.
+     * <p>
+     * In lightweight mode, the input prefix, the input suffix and the clear
+     * button are only created when first used, and the overlay shows the
+     * default messages of the web component instead of having them set on
+     * each component. This lowers the construction cost and the state size of
+     * views with many instances, e.g. editable forms or grids with one
+     * component per row. The components behave the same in both modes.
+     *
+     * @param placeClearButtonFirst whether the clear button is placed before
+     *                              the input suffix
+     * @param lightweight           whether to create the component in
+     *                              lightweight mode
+     */
+    public Autosuggest(boolean placeClearButtonFirst, boolean lightweight) {
+        init(placeClearButtonFirst, lightweight);
+    }
+
+    /**
+     * Creates the component with a custom template parser, to run it headless
+     * in tests, benchmarks and load simulations, without a frontend bundle.
+     * Not part of the supported API of the add-on.
+     *
+     * @param parser                the template parser
+     * @param placeClearButtonFirst whether the clear button is placed before
+     *                              the input suffix
+     */
+    Autosuggest(TemplateParser parser, boolean placeClearButtonFirst) {
+        this(parser, placeClearButtonFirst, false);
+    }
+
+    /**
+     * Creates the component with a custom template parser, optionally in
+     * lightweight mode, see {@link #Autosuggest(boolean, boolean)}. Not part
+     * of the supported API of the add-on.
+     *
+     * @param parser                the template parser
+     * @param placeClearButtonFirst whether the clear button is placed before
+     *                              the input suffix
+     * @param lightweight           whether to create the component in
+     *                              lightweight mode
+     */
+    Autosuggest(TemplateParser parser, boolean placeClearButtonFirst, boolean lightweight) {
+        super(parser);
+        init(placeClearButtonFirst, lightweight);
+    }
+
+    private void init(boolean placeClearButtonFirst, boolean lightweight) {
+        this.placeClearButtonFirst = placeClearButtonFirst;
+        this.lightweight = lightweight;
         setMinimumInputLengthToPerformLazyQuery(0);
+        // Sent along with the input value so the server knows when the client served a query from its cache
+        getElement().addPropertyChangeListener("lazyCacheHitQuery", "vcf-autosuggest-input-value-changed", event -> {});
 
         textField.setSizeFull();
         textField.setValueChangeMode(ValueChangeMode.ON_CHANGE);
 
-        // Init clear button
-        initClearButton();
+        // After compact deserialization, a selection among the options the browser still shows is looked up again
+        getElement().addPropertyChangeListener("selectedValue", event -> {
+            if (event.isUserOriginated()) requeryUnknownSelection();
+        });
+
+        if (lightweight) {
+            // Server side only: the selected value is already synchronized, no extra client listener is needed
+            getElement().addPropertyChangeListener("selectedValue", event -> updateClearButton());
+            return;
+        }
+
+        addValueChangeListener(valueChangeEvent -> setClearButtonVisible(showClearButton && valueChangeEvent.value != null
+            && !valueChangeEvent.value.isEmpty() && !isReadOnly()));
+        getInputPrefix();
+        getInputSuffix();
+
+        overlay.getStyle().set("--x-no-results-msg", "'" + DEFAULT_NO_RESULTS_MSG + "'");
+        overlay.getStyle().set("--x-input-length-below-minimum-msg", "'" + DEFAULT_INPUT_LENGTH_BELOW_MINIMUM_MSG + "'");
+    }
 
-        // Init input prefix
+    private FlexLayout getInputPrefix() {
+        if (inputPrefix != null) return inputPrefix;
         inputPrefix = new FlexLayout();
         inputPrefix.setAlignItems(FlexComponent.Alignment.CENTER);
         inputPrefix.setJustifyContentMode(FlexComponent.JustifyContentMode.CENTER);
         inputPrefix.getElement().setAttribute("slot", "prefix");
         textField.getElement().appendChild(inputPrefix.getElement());
+        return inputPrefix;
+    }
+
+    private FlexLayout getInputSuffix() {
+        if (inputSuffix == null) initInputSuffix();
+        return inputSuffix;
+    }
 
-        // Init input suffix
+    private Button getClearButton() {
+        if (clearButton == null) initInputSuffix();
+        return clearButton;
+    }
+
+    /** Init input suffix, along with the clear button */
+    private void initInputSuffix() {
+        initClearButton();
         inputSuffix = new FlexLayout();
         inputSuffix.setAlignItems(FlexComponent.Alignment.CENTER);
         inputSuffix.setJustifyContentMode(FlexComponent.JustifyContentMode.CENTER);
@@ -229,9 +425,6 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
         inputSuffixContainer.setJustifyContentMode(FlexComponent.JustifyContentMode.CENTER);
         inputSuffixContainer.getElement().setAttribute("slot", "suffix");
         textField.getElement().appendChild(inputSuffixContainer.getElement());
-
-        overlay.getStyle().set("--x-no-results-msg", "'No results'");
-        overlay.getStyle().set("--x-input-length-below-minimum-msg", "'Please keep typing to trigger search ...'");
     }
 
     /** Init clear button */
@@ -249,13 +442,16 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
         style.set("padding", "0");
         clearButton.getElement().setAttribute("aria-label", "");
         clearButton.setId("button-clear");
-        addValueChangeListener(valueChangeEvent -> {
-            if(showClearButton && valueChangeEvent.value != null && !valueChangeEvent.value.isEmpty() && !isReadOnly()) {
-                style.set("display", "block");
-            } else {
-                style.set("display", "none");
-            }
-        });
+    }
+
+    private void updateClearButton() {
+        setClearButtonVisible(showClearButton && getValueKey() != null && !getValueKey().isEmpty() && !isReadOnly());
+    }
+
+    private void setClearButtonVisible(boolean visible) {
+        // A hidden clear button is not created just to stay hidden
+        if (!visible && clearButton == null) return;
+        getClearButton().getElement().getStyle().set("display", visible ? "block" : "none");
     }
 
     @EventHandler
@@ -268,13 +464,13 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
     }
 
     public void setInputPrefix(Component... components) {
-        inputPrefix.removeAll();
-        inputPrefix.add(components);
+        getInputPrefix().removeAll();
+        getInputPrefix().add(components);
     }
 
     public void setInputSuffix(Component... components) {
-        inputSuffix.removeAll();
-        inputSuffix.add(components);
+        getInputSuffix().removeAll();
+        getInputSuffix().add(components);
     }
 
     public void clearDropdownEndSlot() {
@@ -302,7 +498,61 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
 
     public void setLoading(boolean loading) {
         getModel().setLoading(loading);
-        getElement().executeJs("this._loadingChanged(" + loading + ")");
+        loadingPending = loading;
+        scheduleClientUpdate();
+    }
+
+    private void refreshOptionsToDisplay() {
+        refreshPending = true;
+        scheduleClientUpdate();
+    }
+
+    /**
+     * Queues a single client update for the current request. Repeated
+     * refreshes and loading toggles are collapsed so that only the last state
+     * is sent, in one invocation, right before the response is written.
+     */
+    private void scheduleClientUpdate() {
+        if (clientUpdateScheduled) return;
+        clientUpdateScheduled = true;
+        getElement().getNode().runWhenAttached(ui -> ui.beforeClientResponse(this, context -> flushClientUpdate()));
+    }
+
+    private void flushClientUpdate() {
+        clientUpdateScheduled = false;
+        StringBuilder js = new StringBuilder();
+        List<Serializable> params = new ArrayList<>();
+        // Features added after the 1.1.6 web component are only called when present, so an older module overriding it degrades
+        if (lazyCacheClearPending) js.append("if (this._clearLazyCache) this._clearLazyCache();");
+        if (optionsToSend != null) {
+            js.append("this.options = $").append(params.size()).append(";");
+            params.add(optionsToSend);
+        }
+        if (optionsToAppend != null) {
+            js.append("this.options = this.options.concat($").append(params.size()).append(");");
+            params.add(optionsToAppend);
+        }
+        if (refreshPending) js.append("this._refreshOptionsToDisplay(this.options, this.inputValue);");
+        // _refreshOptionsToDisplay already turns the loading indicator off
+        if (loadingPending != null && (!refreshPending || loadingPending)) js.append("this._loadingChanged(").append(loadingPending).append(");");
+        if (lazyResultToStore != null) {
+            js.append("if (this._storeLazyResult) this._storeLazyResult($").append(params.size()).append(");");
+            params.add(lazyResultToStore);
+        }
+        // Reported with the response refreshing the options, which may come later when the provider is asynchronous
+        if (traceResponsePending && refreshPending) {
+            js.append("if (this._traceResponse) this._traceResponse($").append(params.size()).append(", $").append(params.size() + 1).append(");");
+            params.add(tracedSeq);
+            params.add((System.nanoTime() - tracedStart) / 1e6);
+            traceResponsePending = false;
+        }
+        refreshPending = false;
+        loadingPending = null;
+        lazyCacheClearPending = false;
+        lazyResultToStore = null;
+        optionsToSend = null;
+        optionsToAppend = null;
+        if (js.length() > 0) getElement().executeJs(js.toString(), params.toArray(new Serializable[0]));
     }
 
     public Boolean isCaseSensitive() {
@@ -311,6 +561,7 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
 
     public void setCaseSensitive(boolean v) {
         getModel().setCaseSensitive(v);
+        if (serverSideFiltering) applyAdaptiveMode();
     }
 
     public Boolean isLazy() {
@@ -339,21 +590,199 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
                     return;
                 }
 
-                if (valueChangeEvent.getValue().toString().trim().length() >= getModel().getMinimumInputLengthToPerformLazyQuery())
-                    getEventBus().fireEvent(new AutosuggestLazyDataRequestEvent(this, true, valueChangeEvent
-                        .getValue()
-                        .toString()));
+                String query = valueChangeEvent.getValue().toString();
+                if (query.trim().length() >= getModel().getMinimumInputLengthToPerformLazyQuery()) {
+                    refreshPopularityRanking();
+                    KeystrokeTracer tracer = this.tracer;
+                    if (tracer != null) {
+                        tracedSeq = getElement().getProperty("traceSeq", 0);
+                        tracedStart = System.nanoTime();
+                        traceResponsePending = true;
+                    }
+                    try {
+                        if (serveFromLazyCache(query)) return;
+                        if (!acquireLazyPermit()) {
+                            throttle(query);
+                            return;
+                        }
+                        // A held back older query must not be sent after this one
+                        throttledQuery = null;
+                        setThrottled(false);
+                        fireLazyDataRequest(query);
+                    } finally {
+                        if (tracer != null) tracer.record(KeystrokeTracer.Phase.LAZY_REQUEST, System.nanoTime() - tracedStart);
+                    }
+                }
             });
             selectionEvent = addValueAppliedListener(autosuggestValueAppliedEvent -> textField.setValue(autosuggestValueAppliedEvent.getLabel()));
         }
     }
 
+    /**
+     * Gets the number of recent lazy query results kept in memory.
+     *
+     * @return the lazy cache size, 0 when disabled
+     */
+    public int getLazyCacheSize() {
+        Integer size = getModel().getLazyCacheSize();
+        return size == null ? 0 : size;
+    }
+
+    /**
+     * Sets the number of recent lazy query results kept by this component,
+     * both on the client and on the server.
+     * <p>
+     * Results are keyed by query, case sensitivity and search matching mode.
+     * Revisiting a cached query (e.g. after backspacing) renders the cached
+     * options immediately in the browser, and the provider is not called
+     * again. The cache is cleared whenever items are set outside of a lazy
+     * data request, and can be cleared with {@link #clearLazyCache()}.
+     *
+     * @param size maximum number of cached queries, 0 disables the cache
+     */
+    public void setLazyCacheSize(int size) {
+        getModel().setLazyCacheSize(size);
+        lazyCache = size > 0 ? new LazyQueryCache<>(size) : null;
+        lazyCacheClearPending = true;
+        lazyResultToStore = null;
+        scheduleClientUpdate();
+    }
+
+    /**
+     * Removes all cached lazy query results, both on the client and on the
+     * server.
+     */
+    public void clearLazyCache() {
+        if (lazyCache == null) return;
+        lazyCache.clear();
+        lazyCacheClearPending = true;
+        lazyResultToStore = null;
+        scheduleClientUpdate();
+    }
+
+    private String getLazyCacheKey(String query) {
+        String mode = getModel().getSearchMatchingMode();
+        return LazyQueryCache.key(query, Boolean.TRUE.equals(isCaseSensitive()), mode == null ? SearchMatchingMode.STARTS_WITH.toString() : mode);
+    }
+
+    /**
+     * Serves a lazy query from the cache. If the client already rendered it
+     * from its own cache, only the server-side items are swapped.
+     */
+    private boolean serveFromLazyCache(String query) {
+        if (lazyCache == null) return false;
+        Map<String, Option<T>> cached = lazyCache.get(getLazyCacheKey(query));
+        if (cached == null) {
+            getMetrics().recordCacheMiss(metricsId);
+            return false;
+        }
+        getMetrics().recordCacheHit(metricsId);
+        clearItems();
+        // Copied, the cached result must not change with later responses
+        this.items.putAll(cached);
+        if (!query.trim().equals(getElement().getProperty("lazyCacheHitQuery", null))) {
+            setOptionsProperty(toJsonArray(cached.values()));
+            lazyResultToStore = query;
+            refreshOptionsToDisplay();
+        }
+        setLoading(false);
+        return true;
+    }
+
+    private void itemsChanged(String lazyQuery) {
+        setStale(false);
+        getMetrics().recordItemCount(metricsId, this.items.size());
+        Map<String, Option<T>> snapshot = lazyQuery == null ? null : LazyQueryCache.snapshot(this.items);
+        if (lazyQuery != null) {
+            lastLazyQuery = lazyQuery;
+            lastLazyOptions = snapshot;
+        }
+        if (lazyCache != null && lazyQuery != null) {
+            lazyCache.put(getLazyCacheKey(lazyQuery), snapshot);
+            lazyResultToStore = lazyQuery;
+            prefetchAfter(lazyQuery);
+        } else {
+            clearLazyCache();
+        }
+        refreshOptionsToDisplay();
+        setLoading(false);
+    }
+
+    /**
+     * Enables the speculative prefetch of lazy results.
+     * <p>
+     * After a lazy query has been served by the provider set with
+     * {@link #setLazyProviderSimple(LazyProviderFunctionSimple)} or
+     * {@link #setLazyProviderMap(LazyProviderFunctionMap)}, the most probable
+     * next queries (the current query extended with the characters that most
+     * often follow it in the results) are fetched in the background and put
+     * into the lazy cache, so the next keystroke is usually answered from
+     * memory. Requires the lazy cache to be enabled with
+     * {@link #setLazyCacheSize(int)}. Prefetches that do not fit into the
+     * session concurrency budget are skipped.
+     * <p>
+     * The provider calls are speculative, so they run on an executor of the
+     * application's choosing, sized for them, rather than on a shared pool.
+     * The executor is not serialized: a deserialized component stops
+     * prefetching until this method is called again.
+     *
+     * @param maxQueries          number of predicted queries to prefetch after
+     *                            each served query, 0 disables prefetching
+     * @param sessionConcurrency  maximum number of prefetches running at the
+     *                            same time for the whole session
+     * @param executor            executor running the prefetches, required
+     *                            unless prefetching is disabled
+     */
+    public void setLazyPrefetch(int maxQueries, int sessionConcurrency, Executor executor) {
+        if (maxQueries > 0) Objects.requireNonNull(executor, "executor cannot be null when prefetching");
+        this.prefetchQueries = maxQueries;
+        this.prefetchSessionConcurrency = sessionConcurrency;
+        this.prefetchExecutor = executor;
+    }
+
+    private void prefetchAfter(String query) {
+        Executor executor = prefetchExecutor;
+        if (prefetchQueries <= 0 || executor == null || lazyCache == null || lazyOptionsProvider == null) return;
+        UI ui = getUI().orElse(null);
+        if (ui == null) return;
+
+        Semaphore budget = LazyPrefetcher.getSessionBudget(ui.getSession(), prefetchSessionConcurrency);
+        SerializableFunction<String, Map<String, Option<T>>> provider = withResultCache(lazyOptionsProvider);
+        String mode = getModel().getSearchMatchingMode();
+        List<String> nextQueries = LazyPrefetcher.predictNextQueries(query, this.items.values(), Boolean.TRUE.equals(isCaseSensitive()),
+            mode == null ? SearchMatchingMode.STARTS_WITH : SearchMatchingMode.valueOf(mode), prefetchQueries);
+
+        for (String next : nextQueries) {
+            String key = getLazyCacheKey(next);
+            if (lazyCache.containsKey(key)) continue;
+            if (!budget.tryAcquire()) break;
+            try {
+                executor.execute(() -> {
+                    try {
+                        Map<String, Option<T>> result = provider.apply(next);
+                        ui.access(() -> {
+                            if (lazyCache != null && !lazyCache.containsKey(key)) lazyCache.put(key, LazyQueryCache.snapshot(result));
+                        });
+                    } catch (RuntimeException e) {
+                        // Prefetching is best effort, the query is fetched normally when typed
+                    } finally {
+                        budget.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                budget.release();
+                break;
+            }
+        }
+    }
+
     public SearchMatchingMode getSearchMatchingMode() {
         return SearchMatchingMode.valueOf(getModel().getSearchMatchingMode());
     }
 
     public void setSearchMatchingMode(SearchMatchingMode smm) {
         getModel().setSearchMatchingMode(smm.toString());
+        if (serverSideFiltering) applyAdaptiveMode();
     }
 
     public Integer getMinimumInputLengthToPerformLazyQuery() {
@@ -364,6 +793,48 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
         getModel().setMinimumInputLengthToPerformLazyQuery(minLength);
     }
 
+    /**
+     * Gets the number of displayed options above which the dropdown renders
+     * them in a virtual scrolling list.
+     *
+     * @return the virtualization threshold
+     */
+    public Integer getVirtualizationThreshold() {
+        return getModel().getVirtualizationThreshold();
+    }
+
+    /**
+     * Sets the number of displayed options above which the dropdown only
+     * renders the visible rows and recycles them while scrolling, instead of
+     * creating an element per option. A negative value disables it.
+     *
+     * @param threshold the virtualization threshold, 100 by default
+     */
+    public void setVirtualizationThreshold(int threshold) {
+        getModel().setVirtualizationThreshold(threshold);
+    }
+
+    /**
+     * Gets the number of options above which the client filters them in a
+     * Web Worker.
+     *
+     * @return the filter worker threshold
+     */
+    public Integer getFilterWorkerThreshold() {
+        return getModel().getFilterWorkerThreshold();
+    }
+
+    /**
+     * Sets the number of options above which the client filters them in a
+     * Web Worker instead of the main thread, keeping typing responsive for
+     * very large lists. A negative value disables it.
+     *
+     * @param threshold the filter worker threshold, 20000 by default
+     */
+    public void setFilterWorkerThreshold(int threshold) {
+        getModel().setFilterWorkerThreshold(threshold);
+    }
+
     public void setInputLengthBelowMinimumMsg(String msg) {
         overlay.getStyle().set("--x-input-length-below-minimum-msg", "'" + msg + "'");
     }
@@ -398,11 +869,7 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
 
     public void setReadOnly(boolean readOnly) {
         getModel().setReadOnly(readOnly);
-        if(showClearButton && getValueKey() != null && !getValueKey().isEmpty() && !readOnly) {
-            clearButton.getElement().getStyle().set("display", "block");
-        } else {
-            clearButton.getElement().getStyle().set("display", "none");
-        }
+        setClearButtonVisible(showClearButton && getValueKey() != null && !getValueKey().isEmpty() && !readOnly);
         textField.setReadOnly(readOnly);
     }
 
@@ -425,6 +892,7 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
      */
     public void setLimit(int limit) {
         getModel().setLimit(limit);
+        if (serverSideFiltering) applyAdaptiveMode();
     }
 
     @Synchronize(property = "inputValue", value = "vcf-autosuggest-input-value-changed")
@@ -449,7 +917,7 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
     }
 
     public void setValueByLabel(String label) {
-        Option option = getItemForLabel(label).orElseThrow(() -> new IllegalArgumentException("No item found with key " + label));
+        Option<T> option = getItemForLabel(label).orElseThrow(() -> new IllegalArgumentException("No item found with key " + label));
         applyValue(option.getKey());
     }
 
@@ -472,7 +940,7 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
         );
     }
 
-    private Optional<Option> getItemForLabel(String label) {
+    Optional<Option<T>> getItemForLabel(String label) {
         return this.items.values().stream().filter(item -> item.getLabel().equals(label)).findFirst();
     }
 
@@ -480,14 +948,6 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
         return keyGenerator != null ? keyGenerator.generate(item) : item.toString();
     }
 
-    private String getLabel(T item) {
-        return labelGenerator != null ? labelGenerator.generate(item) : item.toString();
-    }
-
-    private String getSearchStr(T item, String defValue) {
-        return searchStringGenerator != null ? searchStringGenerator.generate(item) : defValue;
-    }
-
     /**
      * Gets the label.
      * <p>
@@ -576,13 +1036,769 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
     }
 
     public void setLazyProviderSimple(LazyProviderFunctionSimple<T> ff) {
-        if(lazyDataRequestEventH!=null) lazyDataRequestEventH.remove();
-        lazyDataRequestEventH = addLazyDataRequestListener(event -> setItems(ff.refresh(getModel().getInputValue())));
+        clearAdaptiveItems();
+        setLazyOptionsProvider(query -> toOptions(ff.refresh(query)));
     }
 
     public void setLazyProviderMap(LazyProviderFunctionMap<T> ff) {
+        clearAdaptiveItems();
+        setLazyOptionsProvider(query -> toOptions(ff.refresh(query)));
+    }
+
+    /**
+     * Sets a lazy provider whose results are shown progressively.
+     * <p>
+     * The stream returned by the provider is consumed on the given executor
+     * and the items are pushed to the dropdown in batches as they arrive
+     * (at least every 100 ms), while the loading indicator stays on until the
+     * stream is exhausted. A new query abandons the stream of the previous
+     * one. Batches are applied with {@link UI#access(Command)}, so server push
+     * must be enabled for them to reach the browser as they arrive.
+     *
+     * @param ff        the provider
+     * @param batchSize maximum number of items sent at once
+     * @param executor  executor consuming the streams, which block it until
+     *                  they are exhausted or abandoned
+     */
+    public void setLazyProviderStream(LazyProviderFunctionStream<T> ff, int batchSize, Executor executor) {
+        Objects.requireNonNull(executor, "executor cannot be null");
+        clearAdaptiveItems();
+        if(lazyDataRequestEventH!=null) lazyDataRequestEventH.remove();
+        lazyOptionsProvider = query -> {
+            try (Stream<T> stream = ff.refresh(query)) {
+                return toOptions(stream.collect(Collectors.toList()));
+            }
+        };
+        getModel().setPartialResults(true);
+        lazyDataRequestEventH = addLazyDataRequestListener(event -> streamOptions(ff, event.getValue(), batchSize, executor));
+    }
+
+    private void streamOptions(LazyProviderFunctionStream<T> ff, String query, int batchSize, Executor executor) {
+        UI ui = getUI().orElse(null);
+        if (ui == null) return;
+        long generation = lazyGeneration.incrementAndGet();
+        clearItems();
+        setOptionsProperty(Json.createArray());
+        refreshOptionsToDisplay();
+        setLoading(true);
+
+        try {
+            executor.execute(() -> {
+                List<T> batch = new ArrayList<>();
+                long lastFlush = System.nanoTime();
+                long start = System.nanoTime();
+                try (Stream<T> stream = ff.refresh(query)) {
+                    Iterator<T> iterator = stream.iterator();
+                    while (iterator.hasNext() && lazyGeneration.get() == generation) {
+                        batch.add(iterator.next());
+                        if (batch.size() >= batchSize || System.nanoTime() - lastFlush > 100_000_000L) {
+                            List<T> toSend = batch;
+                            batch = new ArrayList<>();
+                            lastFlush = System.nanoTime();
+                            ui.access(() -> appendStreamedItems(generation, toSend));
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    // The items received so far are kept and the loading state ends below
+                    LoggerFactory.getLogger(Autosuggest.class).warn("Lazy provider stream failed for query '{}'", query, e);
+                } finally {
+                    long nanos = System.nanoTime() - start;
+                    List<T> toSend = batch;
+                    ui.access(() -> {
+                        getMetrics().recordProviderLatency(metricsId, nanos);
+                        KeystrokeTracer tracer = this.tracer;
+                        if (tracer != null) tracer.record(KeystrokeTracer.Phase.PROVIDER, nanos);
+                        appendStreamedItems(generation, toSend);
+                        completeStream(generation, query);
+                    });
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LoggerFactory.getLogger(Autosuggest.class).warn("Lazy provider stream rejected for query '{}'", query, e);
+            setLoading(false);
+        }
+    }
+
+    private void appendStreamedItems(long generation, List<T> streamed) {
+        if (lazyGeneration.get() != generation || streamed.isEmpty()) return;
+        Map<String, Option<T>> options = toOptions(streamed);
+        options.keySet().removeAll(this.items.keySet());
+        this.items.putAll(options);
+        recordPayload(options.values());
+        if (optionsToAppend == null) optionsToAppend = Json.createArray();
+        for (Option<T> option : options.values()) optionsToAppend.set(optionsToAppend.length(), toJsonObject(option));
+        optionsPropertyStale = true;
+        refreshOptionsToDisplay();
+        setLoading(true);
+    }
+
+    private void completeStream(long generation, String query) {
+        if (lazyGeneration.get() != generation) return;
+        if (lazyCache != null) {
+            lazyCache.put(getLazyCacheKey(query), LazyQueryCache.snapshot(this.items));
+            lazyResultToStore = query;
+        }
+        refreshOptionsToDisplay();
+        setLoading(false);
+    }
+
+    private void setLazyOptionsProvider(SerializableFunction<String, Map<String, Option<T>>> provider) {
         if(lazyDataRequestEventH!=null) lazyDataRequestEventH.remove();
-        lazyDataRequestEventH = addLazyDataRequestListener(event -> setItems(ff.refresh(getModel().getInputValue())));
+        getModel().setPartialResults(false);
+        SerializableFunction<String, Map<String, Option<T>>> timed = query -> {
+            long start = System.nanoTime();
+            try {
+                return provider.apply(query);
+            } finally {
+                long nanos = System.nanoTime() - start;
+                getMetrics().recordProviderLatency(metricsId, nanos);
+                KeystrokeTracer tracer = this.tracer;
+                if (tracer != null) tracer.record(KeystrokeTracer.Phase.PROVIDER, nanos);
+            }
+        };
+        lazyOptionsProvider = timed;
+        lazyDataRequestEventH = addLazyDataRequestListener(event -> serveLazyQuery(withResultCache(timed), event.getValue()));
+    }
+
+    /**
+     * Sets the metrics used by all components without their own metrics.
+     *
+     * @param metrics the metrics, or null for none
+     */
+    public static void setDefaultMetrics(AutosuggestMetrics metrics) {
+        defaultMetrics = metrics != null ? metrics : AutosuggestMetrics.NOOP;
+    }
+
+    /**
+     * Sets where this component reports its measurements: lazy provider
+     * latency, lazy cache hits and misses, item count, options payload size,
+     * coalesced and dropped lazy requests, and time taken to set items.
+     * <p>
+     * The metrics are not serialized with the session, a deserialized
+     * component reports to the default metrics set with
+     * {@link #setDefaultMetrics(AutosuggestMetrics)}.
+     *
+     * @param metrics     the metrics, or null for the default metrics
+     * @param componentId id the measurements are tagged with
+     */
+    public void setMetrics(AutosuggestMetrics metrics, String componentId) {
+        this.metrics = metrics;
+        this.metricsId = Objects.requireNonNull(componentId, "componentId cannot be null");
+    }
+
+    private AutosuggestMetrics getMetrics() {
+        AutosuggestMetrics metrics = this.metrics;
+        return metrics != null ? metrics : defaultMetrics;
+    }
+
+    /**
+     * Traces every keystroke from the input event in the browser to the
+     * options rendered for it, recording the duration of each phase into the
+     * tracer (see {@link KeystrokeTracer.Phase}).
+     * <p>
+     * The browser numbers each input and reports when the options for it are
+     * painted, and the server records the phases it handles in between.
+     * Reports are sent as one extra event per keystroke, so tracing should be
+     * enabled only while investigating. Tracing is not serialized with the
+     * session.
+     *
+     * @param tracer the tracer, possibly shared with other components, or
+     *               null to stop tracing
+     */
+    public void setTracing(KeystrokeTracer tracer) {
+        this.tracer = tracer;
+        traceResponsePending = false;
+        getModel().setTracing(tracer != null);
+        if (tracingRegistration != null) tracingRegistration.remove();
+        tracingRegistration = null;
+        if (tracer == null) return;
+        // The sequence number of the input is sent along with the input value
+        Registration seq = getElement().addPropertyChangeListener("traceSeq", "vcf-autosuggest-input-value-changed", event -> {});
+        Registration report = getElement().addEventListener("vcf-autosuggest-trace", event -> {
+                KeystrokeTracer current = this.tracer;
+                if (current == null) return;
+                JsonObject data = event.getEventData();
+                long total = millisToNanos(data.getNumber("event.detail.total"));
+                long render = millisToNanos(data.getNumber("event.detail.render"));
+                current.record(KeystrokeTracer.Phase.TOTAL, total);
+                current.record(KeystrokeTracer.Phase.CLIENT_RENDER, render);
+                if (data.hasKey("event.detail.server") && data.get("event.detail.server").getType() == JsonType.NUMBER) {
+                    long server = millisToNanos(data.getNumber("event.detail.server"));
+                    current.record(KeystrokeTracer.Phase.DEBOUNCE_AND_NETWORK, total - render - server);
+                }
+            })
+            .addEventData("event.detail.total")
+            .addEventData("event.detail.render")
+            .addEventData("event.detail.server");
+        tracingRegistration = () -> {
+            seq.remove();
+            report.remove();
+        };
+    }
+
+    /**
+     * Gets the tracer set with {@link #setTracing(KeystrokeTracer)}.
+     *
+     * @return the tracer, or null when not tracing
+     */
+    public KeystrokeTracer getTracing() {
+        return tracer;
+    }
+
+    private static long millisToNanos(double millis) {
+        return (long) (millis * 1_000_000);
+    }
+
+    /**
+     * Sets a second-level cache for lazy results, shared with other
+     * components and nodes, waiting at most 100 ms for its answers.
+     *
+     * @param cache     the cache, or null to remove it
+     * @param namespace namespace of the results of this component's provider
+     * @see #setLazyResultCache(LazyResultCache, String, long)
+     */
+    public void setLazyResultCache(LazyResultCache cache, String namespace) {
+        setLazyResultCache(cache, namespace, 100);
+    }
+
+    /**
+     * Sets a second-level cache for lazy results, shared with other
+     * components and nodes.
+     * <p>
+     * Before calling the lazy provider, the result of the query is looked up
+     * in the cache under the namespace, and results computed by the provider
+     * are stored into it. Components showing the same data on different nodes
+     * should use the same namespace, and
+     * {@link #invalidateLazyResultCache()} should be called when that data
+     * changes. A cache that fails or does not answer within the timeout counts
+     * as a miss. Items must be {@link java.io.Serializable} to be stored.
+     *
+     * @param cache         the cache, or null to remove it
+     * @param namespace     namespace of the results of this component's
+     *                      provider
+     * @param timeoutMillis maximum time to wait for a cache lookup
+     */
+    public void setLazyResultCache(LazyResultCache cache, String namespace, long timeoutMillis) {
+        this.resultCache = cache;
+        this.resultCacheNamespace = cache == null ? null : Objects.requireNonNull(namespace, "namespace cannot be null");
+        this.resultCacheTimeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Removes all the results of this component's namespace from the cache set
+     * with {@link #setLazyResultCache(LazyResultCache, String)}, for every
+     * node using it, and clears the local lazy cache.
+     */
+    public void invalidateLazyResultCache() {
+        if (resultCache != null) resultCache.invalidate(resultCacheNamespace);
+        clearLazyCache();
+    }
+
+    private SerializableFunction<String, Map<String, Option<T>>> withResultCache(SerializableFunction<String, Map<String, Option<T>>> provider) {
+        LazyResultCache cache = resultCache;
+        if (cache == null) return provider;
+        String namespace = resultCacheNamespace;
+        long timeout = resultCacheTimeoutMillis;
+        boolean caseSensitive = Boolean.TRUE.equals(isCaseSensitive());
+        String mode = getModel().getSearchMatchingMode() == null ? SearchMatchingMode.STARTS_WITH.toString() : getModel().getSearchMatchingMode();
+        return input -> {
+            String key = LazyQueryCache.key(input == null ? "" : input, caseSensitive, mode);
+            Map<String, Option<T>> cached = readResultCache(cache, namespace, key, timeout);
+            if (cached != null) return cached;
+            Map<String, Option<T>> options = provider.apply(input);
+            writeResultCache(cache, namespace, key, options);
+            return options;
+        };
+    }
+
+    private static <T> Map<String, Option<T>> readResultCache(LazyResultCache cache, String namespace, String key, long timeoutMillis) {
+        try {
+            Optional<List<CachedOption>> hit = cache.get(namespace, key).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            if (!hit.isPresent()) return null;
+            Map<String, Option<T>> options = new LinkedHashMap<>();
+            for (CachedOption cached : hit.get()) {
+                Option<T> option = cached.toOption();
+                options.put(option.getKey(), option);
+            }
+            return options;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException | IOException | ClassNotFoundException | RuntimeException e) {
+            // An unavailable or inconsistent cache is a miss
+            return null;
+        }
+    }
+
+    private static <T> void writeResultCache(LazyResultCache cache, String namespace, String key, Map<String, Option<T>> options) {
+        List<CachedOption> payload = new ArrayList<>(options.size());
+        try {
+            for (Option<T> option : options.values()) payload.add(CachedOption.of(option));
+        } catch (IOException e) {
+            // Items that cannot be serialized are not shared
+            return;
+        }
+        cache.put(namespace, key, payload);
+    }
+
+    /**
+     * Sets the time the lazy provider has to answer a query.
+     * <p>
+     * The provider runs on the executor and the request waits for it at most
+     * for the budget. When it is missed, the component immediately shows the
+     * most recent result for the same query or its longest cached prefix,
+     * marked as stale (see {@link #isStale()} and the <code>stale</code>
+     * attribute), and applies the fresh result when the provider completes.
+     * That late update uses {@link UI#access(Command)}, so it reaches the
+     * browser right away only with server push enabled.
+     * <p>
+     * The executor should be dedicated to the provider calls, a call that
+     * misses the budget keeps running on it. It is not serialized: a
+     * deserialized component calls the provider synchronously until this
+     * method is called again.
+     *
+     * @param millis   the latency budget, 0 to call the provider
+     *                 synchronously
+     * @param executor executor running the provider, required with a budget
+     */
+    public void setLazyLatencyBudget(long millis, Executor executor) {
+        if (millis > 0) Objects.requireNonNull(executor, "executor cannot be null with a latency budget");
+        this.lazyLatencyBudgetMillis = millis;
+        this.lazyExecutor = executor;
+    }
+
+    /**
+     * Stops calling a failing lazy provider for a while. Once the provider
+     * failed or missed its latency budget the given number of times in a row,
+     * it is not called during the cooldown and queries are answered with
+     * stale results only. After the cooldown, a single trial call is made: the
+     * circuit closes again if it succeeds within the latency budget, and stays
+     * open for another cooldown otherwise.
+     *
+     * @param failureThreshold consecutive failures opening the circuit
+     * @param cooldownMillis   time during which the provider is not called
+     */
+    public void setLazyCircuitBreaker(int failureThreshold, long cooldownMillis) {
+        this.circuitBreaker = new LazyCircuitBreaker(failureThreshold, cooldownMillis);
+    }
+
+    /**
+     * Removes the circuit breaker set with
+     * {@link #setLazyCircuitBreaker(int, long)}.
+     */
+    public void clearLazyCircuitBreaker() {
+        this.circuitBreaker = null;
+    }
+
+    /**
+     * Shares lazy provider calls with every other component using the same
+     * provider id, in any session.
+     * <p>
+     * While a query (trimmed) is being computed for a provider id, identical
+     * queries from other components with the same case sensitivity and
+     * search matching mode wait for the same computation instead of calling
+     * the provider again. The provider runs on the executor set with
+     * {@link #setLazyLatencyBudget(long, Executor)}, or without one on the
+     * request thread of the first query, the other requests waiting for it.
+     * With a latency budget, the request waits for the shared computation
+     * like for its own call. Without one, the request waits for
+     * it only if server push is disabled; with push enabled, the result is
+     * applied with {@link UI#access(Command)} and pushed when ready, so the
+     * request thread is not blocked. Components sharing an id must use
+     * providers returning the same results for the same query.
+     *
+     * @param providerId id identifying the provider across components
+     */
+    public void setLazyRequestCoalescing(String providerId) {
+        this.coalescingProviderId = Objects.requireNonNull(providerId, "providerId cannot be null");
+    }
+
+    /**
+     * Stops sharing lazy provider calls with other components.
+     */
+    public void clearLazyRequestCoalescing() {
+        this.coalescingProviderId = null;
+    }
+
+    /**
+     * Tells whether the displayed options are a stale fallback, waiting for
+     * the lazy provider to answer.
+     *
+     * @return true if the options are stale
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    private void setStale(boolean stale) {
+        if (this.stale == stale) return;
+        this.stale = stale;
+        getElement().setAttribute("stale", stale);
+    }
+
+    private void serveLazyQuery(SerializableFunction<String, Map<String, Option<T>>> provider, String rawQuery) {
+        // The provider gets the query the cache, coalescing and stale fallbacks are keyed by
+        String query = rawQuery == null ? "" : rawQuery.trim();
+        long generation = lazyGeneration.incrementAndGet();
+        if (circuitBreaker != null && !circuitBreaker.allowRequest()) {
+            getMetrics().recordDroppedRequest(metricsId);
+            serveStale(query);
+            return;
+        }
+        UI ui = getUI().orElse(null);
+        Executor executor = lazyExecutor;
+        // A deserialized component has lost its executor and waits for the provider without a budget
+        long budgetMillis = executor != null ? lazyLatencyBudgetMillis : 0;
+        if ((budgetMillis <= 0 && coalescingProviderId == null) || ui == null) {
+            Map<String, Option<T>> options;
+            try {
+                options = provider.apply(query);
+            } catch (RuntimeException e) {
+                if (circuitBreaker == null) throw e;
+                circuitBreaker.recordFailure();
+                serveStale(query);
+                return;
+            }
+            if (circuitBreaker != null) circuitBreaker.recordSuccess();
+            setOptions(options, query);
+            return;
+        }
+
+        boolean[] called = {coalescingProviderId == null};
+        CompletableFuture<Map<String, Option<T>>> future = coalescingProviderId != null
+            // Keyed like the lazy cache, components differing in case sensitivity or matching mode do not share results
+            ? LazyQueryCoalescer.execute(coalescingProviderId, getLazyCacheKey(query), () -> {
+                called[0] = true;
+                // Without an executor the first request computes the shared result on its own thread
+                return executor != null ? CompletableFuture.supplyAsync(() -> provider.apply(query), executor)
+                    : CompletableFuture.completedFuture(provider.apply(query));
+            })
+            : CompletableFuture.supplyAsync(() -> provider.apply(query), executor);
+        if (!called[0]) getMetrics().recordCoalescedRequest(metricsId);
+
+        // Without a budget, a shared computation is only waited for when its late result could not be pushed
+        boolean waitForResult = budgetMillis <= 0 && !ui.getPushConfiguration().getPushMode().isEnabled();
+        if (!future.isDone() && budgetMillis <= 0 && !waitForResult) {
+            applyWhenComplete(future, ui, generation, query, true);
+            return;
+        }
+        try {
+            Map<String, Option<T>> options = future.isDone() || waitForResult ? future.get() : future.get(budgetMillis, TimeUnit.MILLISECONDS);
+            if (circuitBreaker != null) circuitBreaker.recordSuccess();
+            setOptions(options, query);
+        } catch (TimeoutException e) {
+            if (circuitBreaker != null) circuitBreaker.recordFailure();
+            serveStale(query);
+            // Revalidate in the background, the result is applied only if no newer query was made meanwhile.
+            // The call already counted as a failure, its late outcome is not recorded again.
+            applyWhenComplete(future, ui, generation, query, false);
+        } catch (ExecutionException e) {
+            if (circuitBreaker != null) circuitBreaker.recordFailure();
+            serveStale(query);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            setLoading(false);
+        }
+    }
+
+    private void applyWhenComplete(CompletableFuture<Map<String, Option<T>>> future, UI ui, long generation, String query,
+                                   boolean recordOutcome) {
+        future.whenComplete((options, error) -> ui.access(() -> {
+            if (circuitBreaker != null && recordOutcome) {
+                if (error == null) circuitBreaker.recordSuccess();
+                else circuitBreaker.recordFailure();
+            }
+            if (lazyGeneration.get() != generation) {
+                getMetrics().recordDroppedRequest(metricsId);
+                return;
+            }
+            if (error == null) setOptions(options, query);
+            else if (!stale) serveStale(query);
+        }));
+    }
+
+    /**
+     * Shows the cached result of the query or of its longest cached prefix,
+     * marked as stale.
+     */
+    private void serveStale(String query) {
+        if (!showStale(query)) setLoading(false);
+    }
+
+    private boolean showStale(String query) {
+        Map<String, Option<T>> fallback = null;
+        String trimmed = query.trim();
+        for (int length = trimmed.length(); length > 0 && fallback == null; length--) {
+            String prefix = trimmed.substring(0, length);
+            if (lazyCache != null) fallback = lazyCache.get(getLazyCacheKey(prefix));
+            if (fallback == null && lastLazyQuery != null && lastLazyQuery.trim().equals(prefix)) fallback = lastLazyOptions;
+        }
+        if (fallback == null) return false;
+        clearItems();
+        this.items.putAll(fallback);
+        setOptionsProperty(toJsonArray(this.items.values()));
+        refreshOptionsToDisplay();
+        setLoading(false);
+        setStale(true);
+        return true;
+    }
+
+    private void fireLazyDataRequest(String query) {
+        lazyQueryInFlight = query;
+        try {
+            getEventBus().fireEvent(new AutosuggestLazyDataRequestEvent(this, true, query));
+        } finally {
+            lazyQueryInFlight = null;
+        }
+    }
+
+    /**
+     * Limits the rate of lazy data requests of this component. Requests over
+     * the limit are not dropped: the latest one is kept and sent as soon as
+     * the limit allows it, while the best cached result is shown.
+     * <p>
+     * The held back request is sent from a background thread with
+     * {@link UI#access(Command)}, so rate limiting requires server push
+     * (see {@link com.vaadin.flow.component.page.Push}). Without push, its
+     * result only reaches the browser with the next round trip, e.g. the next
+     * keystroke, and the component stays marked as throttled until then.
+     *
+     * @param permitsPerSecond sustained number of requests per second
+     * @param burst            number of requests allowed at once
+     */
+    public void setLazyRateLimit(double permitsPerSecond, int burst) {
+        this.componentRateLimit = new TokenBucket(permitsPerSecond, burst);
+    }
+
+    /**
+     * Removes the limit set with {@link #setLazyRateLimit(double, int)}.
+     */
+    public void clearLazyRateLimit() {
+        this.componentRateLimit = null;
+    }
+
+    /**
+     * Limits the rate of lazy data requests of all the components of a
+     * session. Like {@link #setLazyRateLimit(double, int)}, it requires
+     * server push.
+     *
+     * @param session          the session
+     * @param permitsPerSecond sustained number of requests per second
+     * @param burst            number of requests allowed at once
+     */
+    public static void setSessionLazyRateLimit(VaadinSession session, double permitsPerSecond, int burst) {
+        TokenBucket.setSessionBucket(session, new TokenBucket(permitsPerSecond, burst));
+    }
+
+    /**
+     * Limits the rate of lazy data requests of all the components of the
+     * application. Like {@link #setLazyRateLimit(double, int)}, it requires
+     * server push.
+     *
+     * @param permitsPerSecond sustained number of requests per second
+     * @param burst            number of requests allowed at once
+     */
+    public static void setGlobalLazyRateLimit(double permitsPerSecond, int burst) {
+        TokenBucket.setGlobal(new TokenBucket(permitsPerSecond, burst));
+    }
+
+    /**
+     * Removes the application-wide limit set with
+     * {@link #setGlobalLazyRateLimit(double, int)}.
+     */
+    public static void clearGlobalLazyRateLimit() {
+        TokenBucket.setGlobal(null);
+    }
+
+    /**
+     * Tells whether lazy data requests are currently held back by a rate
+     * limit. The <code>throttled</code> attribute reflects the same state.
+     *
+     * @return true if throttled
+     */
+    public boolean isThrottled() {
+        return throttled;
+    }
+
+    private void setThrottled(boolean throttled) {
+        if (this.throttled == throttled) return;
+        this.throttled = throttled;
+        getElement().setAttribute("throttled", throttled);
+    }
+
+    private List<TokenBucket> getRateLimits() {
+        List<TokenBucket> buckets = new ArrayList<>(3);
+        if (componentRateLimit != null) buckets.add(componentRateLimit);
+        VaadinSession session = getUI().map(UI::getSession).orElse(null);
+        TokenBucket sessionBucket = session != null ? TokenBucket.getSessionBucket(session) : null;
+        if (sessionBucket != null) buckets.add(sessionBucket);
+        TokenBucket global = TokenBucket.getGlobal();
+        if (global != null) buckets.add(global);
+        return buckets;
+    }
+
+    private boolean acquireLazyPermit() {
+        List<TokenBucket> buckets = getRateLimits();
+        for (int i = 0; i < buckets.size(); i++) {
+            if (!buckets.get(i).tryAcquire()) {
+                for (int j = 0; j < i; j++) buckets.get(j).release();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Holds back a query over the rate limit. Only the latest held back query
+     * is sent once a permit is available; meanwhile the best cached result is
+     * shown.
+     */
+    private void throttle(String query) {
+        if (throttledQuery != null) getMetrics().recordDroppedRequest(metricsId);
+        throttledQuery = query;
+        setThrottled(true);
+        showStale(query);
+        if (throttleRetryScheduled) return;
+        UI ui = getUI().orElse(null);
+        if (ui == null) return;
+        throttleRetryScheduled = true;
+        long delay = getRateLimits().stream().mapToLong(TokenBucket::nanosUntilAvailable).max().orElse(0);
+        TokenBucket.schedule(() -> ui.access(this::retryThrottledQuery), Math.max(delay, 1_000_000L));
+    }
+
+    private void retryThrottledQuery() {
+        throttleRetryScheduled = false;
+        String query = throttledQuery;
+        if (query == null) {
+            setThrottled(false);
+            return;
+        }
+        if (!acquireLazyPermit()) {
+            throttle(query);
+            return;
+        }
+        throttledQuery = null;
+        setThrottled(false);
+        fireLazyDataRequest(query);
+    }
+
+    private void removeLazyOptionsProvider() {
+        if(lazyDataRequestEventH!=null) lazyDataRequestEventH.remove();
+        lazyDataRequestEventH = null;
+        lazyOptionsProvider = null;
+        getModel().setPartialResults(false);
+    }
+
+    /**
+     * Sets the items and lets the component choose how to filter them.
+     *
+     * @param items the items
+     * @see #setAdaptiveItems(AutosuggestCatalog)
+     */
+    public void setAdaptiveItems(Collection<T> items) {
+        setAdaptiveItems(new AutosuggestCatalog<>(UUID.randomUUID().toString(), items, keyGenerator, labelGenerator, searchStringGenerator));
+        // Only used by this component, so removed from the browser once replaced
+        adaptiveCatalogOwned = true;
+    }
+
+    /**
+     * Sets the items from a catalog and lets the component choose how to
+     * filter them.
+     * <p>
+     * Catalogs within the thresholds set with
+     * {@link #setAdaptiveThresholds(int, long)} are sent to the browser and
+     * filtered there. Bigger catalogs switch the component to lazy mode, and
+     * each query is answered on the server from an index of the catalog,
+     * sending at most {@link #setServerFilterLimit(int)} options. Calling
+     * this method again, e.g. when the catalog has grown, re-evaluates the
+     * mode.
+     *
+     * @param catalog the catalog
+     */
+    public void setAdaptiveItems(AutosuggestCatalog<T> catalog) {
+        Objects.requireNonNull(catalog, "catalog cannot be null");
+        if (catalog != adaptiveCatalog) releaseOwnedAdaptiveCatalog();
+        this.adaptiveCatalog = catalog;
+        applyAdaptiveMode();
+    }
+
+    /**
+     * Sets the limits up to which a catalog set with
+     * {@link #setAdaptiveItems(AutosuggestCatalog)} is filtered on the client.
+     *
+     * @param maxEagerItems        maximum number of items, 5000 by default
+     * @param maxEagerPayloadBytes maximum estimated payload size in bytes,
+     *                             512 KiB by default
+     */
+    public void setAdaptiveThresholds(int maxEagerItems, long maxEagerPayloadBytes) {
+        this.adaptiveMaxEagerItems = maxEagerItems;
+        this.adaptiveMaxEagerPayloadBytes = maxEagerPayloadBytes;
+        if (adaptiveCatalog != null) applyAdaptiveMode();
+    }
+
+    /**
+     * Sets the maximum number of options sent for a query when filtering on
+     * the server. The limit set with {@link #setLimit(int)} is used if lower.
+     *
+     * @param limit maximum number of options, 100 by default
+     */
+    public void setServerFilterLimit(int limit) {
+        this.serverFilterLimit = limit;
+        if (serverSideFiltering) applyAdaptiveMode();
+    }
+
+    /**
+     * Tells whether the adaptive items are currently filtered on the server.
+     *
+     * @return true if queries are answered on the server
+     */
+    public boolean isServerSideFiltering() {
+        return serverSideFiltering;
+    }
+
+    private void applyAdaptiveMode() {
+        AutosuggestCatalog<T> adaptive = adaptiveCatalog;
+        boolean eager = adaptive.size() <= adaptiveMaxEagerItems && adaptive.estimatePayloadBytes() <= adaptiveMaxEagerPayloadBytes;
+        if (eager) {
+            if (serverSideFiltering) {
+                removeLazyOptionsProvider();
+                setLazy(false);
+            }
+            serverSideFiltering = false;
+            clearCatalogSource();
+            applyCatalog(adaptive);
+        } else {
+            serverSideFiltering = true;
+            adaptive.getIndex();
+            // Captured here because the provider may also run outside of the UI thread (prefetch)
+            SearchMatchingMode mode = getModel().getSearchMatchingMode() == null ? SearchMatchingMode.STARTS_WITH : getSearchMatchingMode();
+            Integer limit = getModel().getLimit();
+            int maxResults = limit != null && limit > 0 ? Math.min(limit, serverFilterLimit) : serverFilterLimit;
+            boolean caseSensitive = Boolean.TRUE.equals(isCaseSensitive());
+            if (!Boolean.TRUE.equals(isLazy())) setLazy(true);
+            // The catalog is captured rather than its index, so a registered catalog is serialized by id only
+            setLazyOptionsProvider(query -> adaptive.getIndex().search(query, mode, caseSensitive, maxResults));
+            setOptions(new HashMap<>());
+        }
+        adaptiveCatalog = adaptive;
+    }
+
+    /**
+     * Forgets the adaptive items once items or a lazy provider are set
+     * directly, so that later setting changes do not apply the adaptive mode
+     * again.
+     */
+    private void clearAdaptiveItems() {
+        releaseOwnedAdaptiveCatalog();
+        adaptiveCatalog = null;
+        serverSideFiltering = false;
+    }
+
+    private void releaseOwnedAdaptiveCatalog() {
+        if (!adaptiveCatalogOwned) return;
+        adaptiveCatalogOwned = false;
+        String id = adaptiveCatalog.getId();
+        getUI().ifPresent(ui -> SharedOptionsRegistry.get(ui).release(ui, id));
     }
 
     public void setKeyGenerator(KeyGenerator<T> keyG) {
@@ -620,7 +1836,7 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
     public void clearItemsForWhenValueIsNull() {
         getModel().setCustomizeOptionsForWhenValueIsNull(false);
         this.itemsForWhenValueIsNull = new HashMap<>();
-        getModel().setOptionsForWhenValueIsNull(new ArrayList<>());
+        getElement().setPropertyJson("optionsForWhenValueIsNull", Json.createArray());
     }
 
     public void setItemsForWhenValueIsNull(Collection<T> items) {
@@ -628,17 +1844,188 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
         this.itemsForWhenValueIsNull.putAll(items.stream().collect(Collectors.toMap(this::getKey, this::getOption)));
 
         getModel().setCustomizeOptionsForWhenValueIsNull(true);
-        getModel().setOptionsForWhenValueIsNull(new ArrayList<>(this.itemsForWhenValueIsNull.values()));
+        getElement().setPropertyJson("optionsForWhenValueIsNull", toJsonArray(this.itemsForWhenValueIsNull.values()));
     }
 
     public void setItemsForWhenValueIsNull(Map<String, T> items) {
         this.itemsForWhenValueIsNull.clear();
-        this.items.putAll(
-                items.keySet().stream().collect(Collectors.toMap(key -> key, key -> getOption(items.get(key))))
-        );
+        this.itemsForWhenValueIsNull.putAll(toOptions(items));
+
+        getModel().setCustomizeOptionsForWhenValueIsNull(true);
+        getElement().setPropertyJson("optionsForWhenValueIsNull", toJsonArray(this.itemsForWhenValueIsNull.values()));
+    }
+
+    /**
+     * Ranks the items this user selected often and lately first, tracking up
+     * to 64 items with a half-life of 14 days.
+     *
+     * @param namespace       namespace of the selections in the session, shared
+     *                        by the components showing the same kind of items
+     * @param emptyInputItems number of top ranked items shown for an empty
+     *                        input, 0 to leave that list alone
+     * @see #setFrecencyRanking(String, int, int, long)
+     */
+    public void setFrecencyRanking(String namespace, int emptyInputItems) {
+        setFrecencyRanking(namespace, emptyInputItems, 64, TimeUnit.DAYS.toMillis(14));
+    }
+
+    /**
+     * Ranks the items this user selected often and lately first.
+     * <p>
+     * Items selected in any component using the same namespace in the
+     * session are recorded into a {@link FrecencyTracker}. Matching options
+     * of the tracked items are shown before the other ones, by decreasing
+     * score, and the top items can replace the options shown for an empty
+     * input (see {@link #setItemsForWhenValueIsNull(Collection)}).
+     *
+     * @param namespace       namespace of the selections in the session, shared
+     *                        by the components showing the same kind of items
+     * @param emptyInputItems number of top ranked items shown for an empty
+     *                        input, 0 to leave that list alone
+     * @param maxEntries      maximum number of tracked items, used when the
+     *                        namespace is first used in the session
+     * @param halfLifeMillis  time after which a selection counts half, used
+     *                        when the namespace is first used in the session
+     */
+    public void setFrecencyRanking(String namespace, int emptyInputItems, int maxEntries, long halfLifeMillis) {
+        clearFrecencyRanking();
+        this.frecencyNamespace = Objects.requireNonNull(namespace, "namespace cannot be null");
+        this.frecencyEmptyInputItems = emptyInputItems;
+        this.frecencyMaxEntries = maxEntries;
+        this.frecencyHalfLifeMillis = halfLifeMillis;
+        frecencyRegistration = addValueAppliedListener(event -> recordSelection(event.getValue()));
+        updateRanking();
+    }
+
+    /**
+     * Stops ranking items by the selections of the user. The recorded
+     * selections are kept in the session.
+     */
+    public void clearFrecencyRanking() {
+        if (frecencyRegistration != null) frecencyRegistration.remove();
+        frecencyRegistration = null;
+        frecencyNamespace = null;
+        if (popularityNamespace != null) updateRanking();
+        else getElement().removeProperty("rankedKeys");
+    }
+
+    /**
+     * Ranks the items selected most often by all users first, using the
+     * default {@link PopularityTracker}.
+     *
+     * @param namespace       namespace of the items in the tracker, e.g. the
+     *                        catalog id
+     * @param emptyInputItems number of most popular items shown for an empty
+     *                        input, 0 to leave that list alone
+     * @see #setPopularityRanking(PopularityTracker, String, int)
+     */
+    public void setPopularityRanking(String namespace, int emptyInputItems) {
+        setPopularityRanking(null, namespace, emptyInputItems);
+    }
 
+    /**
+     * Ranks the items selected most often by all users first.
+     * <p>
+     * Selections in this component are counted in the tracker, and the
+     * options of the most popular items are shown before the other ones,
+     * after the items ranked by {@link #setFrecencyRanking(String, int)}.
+     * The most popular items present in the current items can also be shown
+     * for an empty input, after the user's own top items. The ranking is
+     * refreshed when the component is attached, when an item is selected and
+     * on lazy queries. A custom tracker is not serialized with the session,
+     * the default one is used after deserialization.
+     *
+     * @param tracker         the tracker, or null for the default one
+     * @param namespace       namespace of the items in the tracker, e.g. the
+     *                        catalog id
+     * @param emptyInputItems number of most popular items shown for an empty
+     *                        input, 0 to leave that list alone
+     */
+    public void setPopularityRanking(PopularityTracker tracker, String namespace, int emptyInputItems) {
+        clearPopularityRanking();
+        this.popularityTracker = tracker;
+        this.popularityNamespace = Objects.requireNonNull(namespace, "namespace cannot be null");
+        this.popularityEmptyInputItems = emptyInputItems;
+        popularityRegistration = addValueAppliedListener(event -> {
+            if (event.getValue() == null || !this.items.containsKey(event.getValue())) return;
+            getPopularityTracker().record(popularityNamespace, event.getValue());
+            updateRanking();
+        });
+        updateRanking();
+    }
+
+    /**
+     * Stops ranking items by popularity and counting the selections of this
+     * component.
+     */
+    public void clearPopularityRanking() {
+        if (popularityRegistration != null) popularityRegistration.remove();
+        popularityRegistration = null;
+        popularityNamespace = null;
+        popularityVersion = -1;
+        if (frecencyNamespace != null) updateRanking();
+        else getElement().removeProperty("rankedKeys");
+    }
+
+    private PopularityTracker getPopularityTracker() {
+        return popularityTracker != null ? popularityTracker : PopularityTracker.getDefault();
+    }
+
+    private void refreshPopularityRanking() {
+        if (popularityNamespace == null) return;
+        if (getPopularityTracker().getRanking(popularityNamespace).getVersion() != popularityVersion) updateRanking();
+    }
+
+    private FrecencyTracker<T> getFrecencyTracker() {
+        if (frecencyNamespace == null) return null;
+        VaadinSession session = getUI().map(UI::getSession).orElse(VaadinSession.getCurrent());
+        return session == null ? null : FrecencyTracker.get(session, frecencyNamespace, frecencyMaxEntries, frecencyHalfLifeMillis);
+    }
+
+    private void recordSelection(String key) {
+        FrecencyTracker<T> tracker = getFrecencyTracker();
+        Option<T> option = key == null ? null : this.items.get(key);
+        if (tracker == null || option == null) return;
+        tracker.record(key, option.getItem());
+        updateRanking();
+    }
+
+    private void updateRanking() {
+        FrecencyTracker<T> frecency = getFrecencyTracker();
+        PopularityTracker.Ranking popularity = popularityNamespace == null ? null : getPopularityTracker().getRanking(popularityNamespace);
+        if (frecency == null && popularity == null) return;
+        if (popularity != null) popularityVersion = popularity.getVersion();
+
+        // The user's own selections rank before the popular ones
+        Set<String> keys = new LinkedHashSet<>();
+        if (frecency != null) keys.addAll(frecency.getTopKeys(frecencyMaxEntries));
+        if (popularity != null) keys.addAll(popularity.getTopKeys(MAX_POPULAR_RANKED_KEYS));
+        JsonArray rankedKeys = Json.createArray();
+        for (String key : keys) rankedKeys.set(rankedKeys.length(), key);
+        getElement().setPropertyJson("rankedKeys", rankedKeys);
+
+        Map<String, Option<T>> emptyInputOptions = new LinkedHashMap<>();
+        if (frecency != null && frecencyEmptyInputItems > 0) {
+            frecency.getTopItems(frecencyEmptyInputItems).forEach((key, item) -> {
+                // Keeps the key it was selected with, which may not come from the key generator
+                Option<T> option = getOption(item);
+                emptyInputOptions.put(key, new Option<>(key, option.getLabel(), option.getSearchStr(), item));
+            });
+        }
+        if (popularity != null && popularityEmptyInputItems > 0) {
+            int added = 0;
+            for (String key : popularity.getTopKeys(Integer.MAX_VALUE)) {
+                if (added >= popularityEmptyInputItems) break;
+                Option<T> option = this.items.get(key);
+                if (option == null || emptyInputOptions.containsKey(key)) continue;
+                emptyInputOptions.put(key, option);
+                added++;
+            }
+        }
+        if (emptyInputOptions.isEmpty()) return;
+        this.itemsForWhenValueIsNull = emptyInputOptions;
         getModel().setCustomizeOptionsForWhenValueIsNull(true);
-        getModel().setOptionsForWhenValueIsNull(new ArrayList<>(this.itemsForWhenValueIsNull.values()));
+        getElement().setPropertyJson("optionsForWhenValueIsNull", toJsonArray(emptyInputOptions.values()));
     }
 
     public void clearOptionTemplate() {
@@ -654,36 +2041,393 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
     }
 
     private void setItems() {
-        this.setItems(this.items.values().stream().map(Option::getItem).collect(Collectors.toList()));
+        long start = System.nanoTime();
+        setOptions(toOptions(this.items.values().stream().map(Option::getItem).collect(Collectors.toList())));
+        getMetrics().recordSetItemsTime(metricsId, System.nanoTime() - start);
     }
 
     public void setItems(Collection<T> items) {
-        clearItems();
-        this.items.putAll(items.stream().collect(Collectors.toMap(this::getKey, this::getOption)));
-        getModel().setOptions(new ArrayList<>(this.items.values()));
-        getElement().executeJs("this._refreshOptionsToDisplay(this.options, this.inputValue)");
-        setLoading(false);
+        long start = System.nanoTime();
+        clearAdaptiveItemsAndProvider();
+        setOptions(toOptions(items));
+        getMetrics().recordSetItemsTime(metricsId, System.nanoTime() - start);
     }
 
     public void setItems(Map<String, T> items) {
+        long start = System.nanoTime();
+        clearAdaptiveItemsAndProvider();
+        setOptions(toOptions(items));
+        getMetrics().recordSetItemsTime(metricsId, System.nanoTime() - start);
+    }
+
+    private void clearAdaptiveItemsAndProvider() {
+        // Server-side filtering turned lazy mode on for the index provider, which must not answer for the new items
+        if (serverSideFiltering) {
+            removeLazyOptionsProvider();
+            setLazy(false);
+        }
+        clearAdaptiveItems();
+    }
+
+    private void setOptions(Map<String, Option<T>> options) {
+        setOptions(options, lazyQueryInFlight);
+    }
+
+    private void setOptions(Map<String, Option<T>> options, String lazyQuery) {
+        long start = System.nanoTime();
         clearItems();
-        this.items.putAll(
-                items.keySet().stream().collect(Collectors.toMap(key -> key, key -> getOption(items.get(key))))
-        );
-        getModel().setOptions(new ArrayList<>(this.items.values()));        getElement().executeJs("this._refreshOptionsToDisplay(this.options, this.inputValue)");
+        this.items.putAll(options);
+        setOptionsProperty(toJsonArray(this.items.values()));
+        recordPayload(this.items.values());
+        itemsChanged(lazyQuery);
+        if (tracer != null && lazyQuery != null) tracer.record(KeystrokeTracer.Phase.SET_ITEMS, System.nanoTime() - start);
+    }
+
+    /**
+     * Sets the items from a shared catalog.
+     * <p>
+     * The catalog options are transferred to the browser once per UI and each
+     * <code>vcf-autosuggest</code> element only references them by the catalog
+     * id, so many instances showing the same list (e.g. one per grid row) do
+     * not hold a copy of it each, neither on the server nor on the client.
+     *
+     * @param catalog the shared catalog to use
+     */
+    public void setItems(AutosuggestCatalog<T> catalog) {
+        Objects.requireNonNull(catalog, "catalog cannot be null");
+        clearAdaptiveItemsAndProvider();
+        clearCatalogSource();
+        applyCatalog(catalog);
+    }
+
+    /**
+     * Sets the items from a source of catalog versions.
+     * <p>
+     * The latest version is used right away. When the source publishes a new
+     * version, the component moves to it on the next input or attach, only
+     * swapping its catalog reference, so no rebuild happens per component
+     * and the items are never seen empty.
+     *
+     * @param source the catalog source to use
+     */
+    public void setItems(AutosuggestCatalogSource<T> source) {
+        Objects.requireNonNull(source, "source cannot be null");
+        clearAdaptiveItemsAndProvider();
+        clearCatalogSource();
+        applyCatalog(source.getCurrent());
+        this.catalogSource = source;
+        // The input event is already sent to the server for the lazy cache, listening to it adds no round trip
+        catalogSourceRegistration = getElement().addEventListener("vcf-autosuggest-input-value-changed", event -> switchToLatestCatalog());
+    }
+
+    private void switchToLatestCatalog() {
+        if (catalogSource == null) return;
+        AutosuggestCatalog<T> latest = catalogSource.getCurrent();
+        if (latest != catalog) applyCatalog(latest);
+    }
+
+    private void clearCatalogSource() {
+        if (catalogSourceRegistration != null) catalogSourceRegistration.remove();
+        catalogSourceRegistration = null;
+        catalogSource = null;
+    }
+
+    private void applyCatalog(AutosuggestCatalog<T> catalog) {
+        long start = System.nanoTime();
+        this.catalog = catalog;
+        this.items = catalog.getOptions();
+        getElement().removeProperty("options");
+        getElement().setProperty("sharedOptionsId", catalog.getId());
+        getUI().ifPresent(ui -> SharedOptionsRegistry.get(ui).ensureSent(ui, catalog));
+        clearLazyCache();
+        refreshOptionsToDisplay();
         setLoading(false);
+        AutosuggestMetrics metrics = getMetrics();
+        metrics.recordItemCount(metricsId, catalog.size());
+        if (metrics != AutosuggestMetrics.NOOP) metrics.recordPayloadBytes(metricsId, catalog.estimatePayloadBytes());
+        metrics.recordSetItemsTime(metricsId, System.nanoTime() - start);
+    }
+
+    /**
+     * Called by the client when the shared options it waits for are not
+     * registered in the page, e.g. after a reload of a preserved UI, whose
+     * registry still has them as sent.
+     */
+    @ClientCallable
+    private void requestSharedOptions(String id) {
+        AutosuggestCatalog<T> current = catalog;
+        if (current == null || !current.getId().equals(id)) return;
+        getUI().ifPresent(ui -> SharedOptionsRegistry.get(ui).resend(ui, current));
+    }
+
+    private void recordPayload(Collection<Option<T>> options) {
+        AutosuggestMetrics metrics = getMetrics();
+        // Estimating walks all the options, skipped when nobody listens
+        if (metrics != AutosuggestMetrics.NOOP) metrics.recordPayloadBytes(metricsId, AutosuggestCatalog.estimatePayloadBytes(options));
+    }
+
+    /**
+     * Gets the shared catalog the items were set from.
+     *
+     * @return the shared catalog or an empty optional if the items are owned
+     *         by this component
+     */
+    public Optional<AutosuggestCatalog<T>> getCatalog() {
+        return Optional.ofNullable(catalog);
+    }
+
+    @Override
+    protected void onAttach(AttachEvent attachEvent) {
+        super.onAttach(attachEvent);
+        switchToLatestCatalog();
+        rebuildReleasedLazyData();
+        // Other components may have recorded selections meanwhile
+        if (frecencyNamespace != null || popularityNamespace != null) updateRanking();
+        if (catalog != null) SharedOptionsRegistry.get(attachEvent.getUI()).ensureSent(attachEvent.getUI(), catalog);
+        // In compact mode the options are not part of the element state, a new client element needs them again
+        if (compactSerialization && catalog == null && optionsToSend == null) {
+            setOptionsProperty(toJsonArray(this.items.values()));
+        }
+        // Streamed options were appended on the client only, the property must hold them all when re-sent
+        else if (optionsPropertyStale && catalog == null) {
+            setOptionsProperty(toJsonArray(this.items.values()));
+            optionsPropertyStale = false;
+        }
+    }
+
+    @Override
+    protected void onDetach(DetachEvent detachEvent) {
+        super.onDetach(detachEvent);
+        if (detachPolicy == DetachPolicy.KEEP) return;
+        // Results of pending requests, streamed batches and held back queries are dropped
+        lazyGeneration.incrementAndGet();
+        throttledQuery = null;
+        lazyResultToStore = null;
+        traceResponsePending = false;
+        // Catalog options are shared and items set directly cannot be rebuilt
+        if (catalog != null || !Boolean.TRUE.equals(isLazy()) || lazyDataReleased) return;
+        if (detachPolicy == DetachPolicy.SOFT_REFERENCE) {
+            releasedLazyData = new SoftReference<>(new ReleasedLazyData<>(items, lazyCache, lastLazyQuery, lastLazyOptions));
+        }
+        clearItems();
+        optionsToSend = null;
+        getElement().removeProperty("options");
+        if (lazyCache != null) lazyCache = new LazyQueryCache<>(lazyCache.getMaxSize());
+        lastLazyQuery = null;
+        lastLazyOptions = null;
+        lazyDataReleased = true;
+    }
+
+    /**
+     * Puts back the lazy data released on detach, or queries it again with
+     * the current input value if it was reclaimed.
+     */
+    private void rebuildReleasedLazyData() {
+        if (!lazyDataReleased) return;
+        lazyDataReleased = false;
+        ReleasedLazyData<T> released = releasedLazyData == null ? null : releasedLazyData.get();
+        releasedLazyData = null;
+        if (released != null) {
+            this.items = released.items;
+            this.lazyCache = released.lazyCache;
+            this.lastLazyQuery = released.lastLazyQuery;
+            this.lastLazyOptions = released.lastLazyOptions;
+            setOptionsProperty(toJsonArray(this.items.values()));
+            return;
+        }
+        String query = getModel().getInputValue();
+        if (query != null && query.trim().length() >= getModel().getMinimumInputLengthToPerformLazyQuery()) {
+            fireLazyDataRequest(query);
+        }
+    }
+
+    /**
+     * Sets what happens to the component state when it is detached.
+     * <p>
+     * By default ({@link DetachPolicy#KEEP}) everything is kept, so a detached
+     * component kept for later (e.g. in a cached view) holds its items for as
+     * long as it is referenced. With {@link DetachPolicy#RELEASE}, pending lazy
+     * work is cancelled on detach and, in lazy mode, the loaded items and
+     * cached lazy results are released; on re-attach, the current input value
+     * is queried again. {@link DetachPolicy#SOFT_REFERENCE} only keeps them
+     * softly instead, so that they are put back on re-attach unless the
+     * garbage collector needed the memory. Catalog options are shared and are
+     * not affected, neither are items set directly in eager mode as they
+     * cannot be rebuilt.
+     *
+     * @param detachPolicy the policy, not null
+     */
+    public void setDetachPolicy(DetachPolicy detachPolicy) {
+        this.detachPolicy = Objects.requireNonNull(detachPolicy, "detachPolicy");
+    }
+
+    /**
+     * Gets what happens to the component state when it is detached.
+     *
+     * @return the detach policy
+     */
+    public DetachPolicy getDetachPolicy() {
+        return detachPolicy;
+    }
+
+    /**
+     * Enables compact session serialization.
+     * <p>
+     * By default the items, their client-side copy in the element state and
+     * the cached lazy results are serialized with the session. In compact
+     * mode, only the references needed to rebuild them are: the options are
+     * sent to the browser without being kept in the element state, and the
+     * selected option and input value are the only persisted selection state.
+     * After deserialization on another node, the items are taken back from
+     * the catalog (which is serialized by id if registered in the
+     * {@link AutosuggestCatalogRegistry}). Otherwise only the selected option
+     * is restored, and the other items come back with the next lazy query,
+     * which goes through the usual latency budget, circuit breaker and rate
+     * limits. Selecting one of the options the browser still shows makes
+     * such a query for the current input value; the selected item is
+     * available once it is answered. Items set with
+     * {@link #setItems(Collection)} without a lazy provider are not restored
+     * on the server.
+     *
+     * @param compact true to serialize the component compactly
+     */
+    public void setCompactSerialization(boolean compact) {
+        if (this.compactSerialization == compact) return;
+        this.compactSerialization = compact;
+        if (catalog != null) return;
+        if (compact) {
+            getElement().removeProperty("options");
+            setOptionsProperty(toJsonArray(this.items.values()));
+        } else {
+            getElement().setPropertyJson("options", toJsonArray(this.items.values()));
+            optionsToSend = null;
+            optionsPropertyStale = false;
+        }
+    }
+
+    /**
+     * Tells whether compact session serialization is enabled.
+     *
+     * @return true if the component is serialized compactly
+     */
+    public boolean isCompactSerialization() {
+        return compactSerialization;
+    }
+
+    private void setOptionsProperty(JsonArray options) {
+        if (compactSerialization) {
+            optionsToSend = options;
+            optionsToAppend = null;
+            scheduleClientUpdate();
+        } else {
+            getElement().setPropertyJson("options", options);
+        }
+    }
+
+    /**
+     * Queries the current input value again when the user selected an option
+     * that was not restored after compact deserialization. Only the browser
+     * still had it.
+     */
+    private void requeryUnknownSelection() {
+        if (!itemsRestorePending) return;
+        String key = getValueKey();
+        if (key == null || key.isEmpty() || this.items.containsKey(key)) return;
+        itemsRestorePending = false;
+        String query = getModel().getInputValue();
+        if (query == null || !Boolean.TRUE.equals(isLazy()) || !acquireLazyPermit()) return;
+        fireLazyDataRequest(query);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        // Catalog items are restored from the catalog, compact mode keeps the selected option only
+        out.writeObject(catalog != null ? null : compactSerialization ? getSelectedOption() : items);
+        out.writeInt(lazyCache == null ? 0 : lazyCache.getMaxSize());
+        out.writeObject(compactSerialization ? null : lazyCache);
+        out.writeObject(compactSerialization ? null : lastLazyOptions);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        Map<String, Option<T>> ownItems = (Map<String, Option<T>>) in.readObject();
+        int lazyCacheSize = in.readInt();
+        lazyCache = (LazyQueryCache<T>) in.readObject();
+        lastLazyOptions = (Map<String, Option<T>>) in.readObject();
+        if (catalog != null) items = catalog.getOptions();
+        else items = ownItems != null ? ownItems : new HashMap<>();
+        if (lazyCache == null && lazyCacheSize > 0) lazyCache = new LazyQueryCache<>(lazyCacheSize);
+        itemsRestorePending = compactSerialization && catalog == null;
+    }
+
+    private Map<String, Option<T>> getSelectedOption() {
+        Map<String, Option<T>> selected = new HashMap<>();
+        String key = getValueKey();
+        if (key != null && this.items.containsKey(key)) selected.put(key, this.items.get(key));
+        return selected;
     }
 
     private void clearItems() {
-        this.items.clear();
+        clearCatalogSource();
+        itemsRestorePending = false;
+        optionsToAppend = null;
+        optionsPropertyStale = false;
+        if (catalog != null) {
+            catalog = null;
+            getElement().removeProperty("sharedOptionsId");
+        }
+        this.items = new HashMap<>();
     }
 
-    private Option getOption(T item) {
-        String key = getKey(item);
-        String label = getLabel(item);
-        String searchStr = getSearchStr(item, label);
+    private Map<String, Option<T>> toOptions(Collection<T> items) {
+        return items.stream().collect(Collectors.toMap(this::getKey, this::getOption));
+    }
+
+    private Map<String, Option<T>> toOptions(Map<String, T> items) {
+        return items.keySet().stream().collect(Collectors.toMap(key -> key, key -> getOption(items.get(key))));
+    }
 
-        return new Option(key, label, searchStr, item);
+    private Option<T> getOption(T item) {
+        return createOption(item, keyGenerator, labelGenerator, searchStringGenerator);
+    }
+
+    static <T> Option<T> createOption(T item, KeyGenerator<T> keyGenerator, LabelGenerator<T> labelGenerator,
+                                      SearchStringGenerator<T> searchStringGenerator) {
+        String key = keyGenerator != null ? keyGenerator.generate(item) : item.toString();
+        String label = labelGenerator != null ? labelGenerator.generate(item) : item.toString();
+        String searchStr = searchStringGenerator != null ? searchStringGenerator.generate(item) : label;
+
+        return new Option<>(key, label, searchStr, item);
+    }
+
+    /**
+     * Builds the client-side representation of the given options in one go.
+     * <p>
+     * Options are sent as a single element property instead of going through
+     * the template model, which would reflectively read every option and
+     * create a state node for each of them.
+     */
+    static JsonArray toJsonArray(Collection<? extends AutosuggestTemplateModel.FOption> options) {
+        JsonArray array = Json.createArray();
+        int index = 0;
+        for (AutosuggestTemplateModel.FOption option : options) {
+            array.set(index++, toJsonObject(option));
+        }
+        return array;
+    }
+
+    private static JsonObject toJsonObject(AutosuggestTemplateModel.FOption option) {
+        JsonObject json = Json.createObject();
+        putString(json, "key", option.getKey());
+        putString(json, "label", option.getLabel());
+        putString(json, "searchStr", option.getSearchStr());
+        return json;
+    }
+
+    private static void putString(JsonObject json, String name, String value) {
+        if (value == null) json.put(name, Json.createNull());
+        else json.put(name, value);
     }
 
     /**
@@ -852,4 +2596,25 @@ public class Autosuggest<T> extends PolymerTemplate<Autosuggest.AutosuggestTempl
     }
 
     public enum SearchMatchingMode { STARTS_WITH, CONTAINS }
+
+    /**
+     * What happens to the component state when it is detached, see
+     * {@link #setDetachPolicy(DetachPolicy)}.
+     */
+    public enum DetachPolicy { KEEP, RELEASE, SOFT_REFERENCE }
+
+    private static final class ReleasedLazyData<T> {
+        private final Map<String, Option<T>> items;
+        private final LazyQueryCache<T> lazyCache;
+        private final String lastLazyQuery;
+        private final Map<String, Option<T>> lastLazyOptions;
+
+        private ReleasedLazyData(Map<String, Option<T>> items, LazyQueryCache<T> lazyCache, String lastLazyQuery,
+                                 Map<String, Option<T>> lastLazyOptions) {
+            this.items = items;
+            this.lazyCache = lazyCache;
+            this.lastLazyQuery = lastLazyQuery;
+            this.lastLazyOptions = lastLazyOptions;
+        }
+    }
 }
@@ -0,0 +1,161 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import elemental.json.JsonArray;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Immutable list of options that can be shared by many {@link Autosuggest}
+ * instances.
+ * <p>
+ * The options are built once when the catalog is created. Components using
+ * the catalog (see {@link Autosuggest#setItems(AutosuggestCatalog)}) reference
+ * the same server-side map, and the browser receives the list only once per
+ * UI, identified by the catalog id. A catalog registered in the
+ * {@link AutosuggestCatalogRegistry} is serialized by id only.
+ *
+ * @param <T> the type of the items
+ * @author Vaadin Ltd
+ */
+public class AutosuggestCatalog<T> implements Serializable {
+
+    private final String id;
+    private final Map<String, Autosuggest.Option<T>> options;
+    private transient JsonArray json;
+    private transient AutosuggestIndex<T> index;
+    private long payloadBytes = -1;
+    // Set for the versions published by an AutosuggestCatalogSource
+    private String sourceId = null;
+
+    /**
+     * Creates a catalog that uses {@link Object#toString()} for keys, labels
+     * and search strings.
+     *
+     * @param id    unique id of the catalog
+     * @param items the items of the catalog
+     */
+    public AutosuggestCatalog(String id, Collection<T> items) {
+        this(id, items, null, null, null);
+    }
+
+    /**
+     * Creates a catalog with custom generators. A <code>null</code> generator
+     * falls back to the same defaults used by {@link Autosuggest}.
+     *
+     * @param id                    unique id of the catalog
+     * @param items                 the items of the catalog
+     * @param keyGenerator          the key generator, may be null
+     * @param labelGenerator        the label generator, may be null
+     * @param searchStringGenerator the search string generator, may be null
+     */
+    public AutosuggestCatalog(String id, Collection<T> items,
+                              Autosuggest.KeyGenerator<T> keyGenerator,
+                              Autosuggest.LabelGenerator<T> labelGenerator,
+                              Autosuggest.SearchStringGenerator<T> searchStringGenerator) {
+        this.id = Objects.requireNonNull(id, "id cannot be null");
+        Map<String, Autosuggest.Option<T>> options = new LinkedHashMap<>();
+        for (T item : items) {
+            Autosuggest.Option<T> option = Autosuggest.createOption(item, keyGenerator, labelGenerator, searchStringGenerator);
+            options.put(option.getKey(), option);
+        }
+        this.options = Collections.unmodifiableMap(options);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int size() {
+        return options.size();
+    }
+
+    String getSourceId() {
+        return sourceId;
+    }
+
+    void setSourceId(String sourceId) {
+        this.sourceId = sourceId;
+    }
+
+    Map<String, Autosuggest.Option<T>> getOptions() {
+        return options;
+    }
+
+    /**
+     * Estimates the size of the options payload sent to the browser, without
+     * building it.
+     *
+     * @return estimated payload size in bytes
+     */
+    public synchronized long estimatePayloadBytes() {
+        if (payloadBytes < 0) payloadBytes = estimatePayloadBytes(options.values());
+        return payloadBytes;
+    }
+
+    static long estimatePayloadBytes(Collection<? extends Autosuggest.Option<?>> options) {
+        long bytes = 2;
+        for (Autosuggest.Option<?> option : options) {
+            // {"key":"","label":"","searchStr":""}, plus the separating comma
+            bytes += 37 + length(option.getKey()) + length(option.getLabel()) + length(option.getSearchStr());
+        }
+        return bytes;
+    }
+
+    private static int length(String value) {
+        return value == null ? 4 : value.length();
+    }
+
+    synchronized AutosuggestIndex<T> getIndex() {
+        if (index == null) index = new AutosuggestIndex<>(options.values());
+        return index;
+    }
+
+    synchronized JsonArray toJson() {
+        if (json == null) json = Autosuggest.toJsonArray(options.values());
+        return json;
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        return AutosuggestCatalogRegistry.isRegistered(this) ? new Reference(id) : this;
+    }
+
+    /**
+     * Serialized form of a registered catalog.
+     */
+    private static class Reference implements Serializable {
+
+        private final String id;
+
+        Reference(String id) {
+            this.id = id;
+        }
+
+        private Object readResolve() throws ObjectStreamException {
+            return AutosuggestCatalogRegistry.find(id)
+                .orElseThrow(() -> new InvalidObjectException("No catalog registered with id " + id));
+        }
+    }
+}
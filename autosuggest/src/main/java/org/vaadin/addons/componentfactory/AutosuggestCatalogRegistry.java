@@ -0,0 +1,109 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Application-wide registry of {@link AutosuggestCatalog}s by id.
+ * <p>
+ * A registered catalog is serialized as a reference to its id only, and
+ * resolved from the registry of the node deserializing it. This keeps
+ * replicated sessions small: register the same catalogs on every node (e.g.
+ * at startup) before sessions are moved between them.
+ * <p>
+ * Registered {@link AutosuggestCatalogSource}s are serialized by id too, and
+ * any version of their catalogs is resolved to the latest version of the
+ * source on the receiving node.
+ */
+public final class AutosuggestCatalogRegistry {
+
+    private static final ConcurrentHashMap<String, AutosuggestCatalog<?>> CATALOGS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, AutosuggestCatalogSource<?>> SOURCES = new ConcurrentHashMap<>();
+
+    private AutosuggestCatalogRegistry() {
+    }
+
+    /**
+     * Registers a catalog, replacing any catalog registered with the same id.
+     *
+     * @param catalog the catalog to register
+     */
+    public static void register(AutosuggestCatalog<?> catalog) {
+        CATALOGS.put(catalog.getId(), catalog);
+    }
+
+    /**
+     * Registers a catalog source, replacing any source registered with the
+     * same id.
+     *
+     * @param source the catalog source to register
+     */
+    public static void register(AutosuggestCatalogSource<?> source) {
+        SOURCES.put(source.getId(), source);
+    }
+
+    /**
+     * Removes a catalog or a catalog source from the registry.
+     *
+     * @param id the id of the catalog or source
+     */
+    public static void unregister(String id) {
+        CATALOGS.remove(id);
+        SOURCES.remove(id);
+    }
+
+    /**
+     * Finds a registered catalog. The id of a version of a registered source
+     * resolves to the latest version of the source.
+     *
+     * @param id the id of the catalog
+     * @return the catalog, or an empty optional if none is registered
+     */
+    public static Optional<AutosuggestCatalog<?>> find(String id) {
+        AutosuggestCatalog<?> catalog = CATALOGS.get(id);
+        if (catalog == null) {
+            AutosuggestCatalogSource<?> source = findSourceOf(id);
+            if (source != null) catalog = source.getCurrent();
+        }
+        return Optional.ofNullable(catalog);
+    }
+
+    /**
+     * Finds a registered catalog source.
+     *
+     * @param id the id of the source
+     * @return the source, or an empty optional if none is registered
+     */
+    public static Optional<AutosuggestCatalogSource<?>> findSource(String id) {
+        return Optional.ofNullable(SOURCES.get(id));
+    }
+
+    static boolean isRegistered(AutosuggestCatalog<?> catalog) {
+        return CATALOGS.get(catalog.getId()) == catalog || findSourceOf(catalog.getId()) != null;
+    }
+
+    private static AutosuggestCatalogSource<?> findSourceOf(String catalogId) {
+        int version = catalogId.lastIndexOf('@');
+        return SOURCES.get(version < 0 ? catalogId : catalogId.substring(0, version));
+    }
+}
@@ -0,0 +1,186 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.slf4j.LoggerFactory;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Source of versioned {@link AutosuggestCatalog} snapshots for items that
+ * change over time.
+ * <p>
+ * Each {@link #refresh()} loads the items, builds a new immutable catalog
+ * (including its client payload) on the calling thread, typically a
+ * scheduled background task, and publishes it with a single atomic reference
+ * swap. Readers never see a partially built catalog and are never blocked by
+ * a refresh. Components using the source (see
+ * {@link Autosuggest#setItems(AutosuggestCatalogSource)}) move to the latest
+ * version on their next input. Versions have the id
+ * <code>&lt;source id&gt;@&lt;version&gt;</code>; a browser only keeps the
+ * latest version it received. A source registered in the
+ * {@link AutosuggestCatalogRegistry} is serialized by id only. The loader and
+ * generators are not serialized: an unregistered source is deserialized as
+ * the source registered with the same id if there is one, otherwise it keeps
+ * its current catalog and can no longer be refreshed.
+ *
+ * @param <T> the type of the items
+ */
+public class AutosuggestCatalogSource<T> implements Serializable {
+
+    private final String id;
+    private transient Supplier<? extends Collection<T>> loader;
+    private transient Autosuggest.KeyGenerator<T> keyGenerator;
+    private transient Autosuggest.LabelGenerator<T> labelGenerator;
+    private transient Autosuggest.SearchStringGenerator<T> searchStringGenerator;
+    private final AtomicReference<AutosuggestCatalog<T>> current = new AtomicReference<>();
+    private long version = 0;
+
+    /**
+     * Creates a source using {@link Object#toString()} for keys, labels and
+     * search strings.
+     *
+     * @param id     unique id of the source
+     * @param loader loads the current items
+     */
+    public AutosuggestCatalogSource(String id, Supplier<? extends Collection<T>> loader) {
+        this(id, loader, null, null, null);
+    }
+
+    /**
+     * Creates a source with custom generators, see
+     * {@link AutosuggestCatalog#AutosuggestCatalog(String, Collection, Autosuggest.KeyGenerator, Autosuggest.LabelGenerator, Autosuggest.SearchStringGenerator)}.
+     *
+     * @param id                    unique id of the source
+     * @param loader                loads the current items
+     * @param keyGenerator          the key generator, may be null
+     * @param labelGenerator        the label generator, may be null
+     * @param searchStringGenerator the search string generator, may be null
+     */
+    public AutosuggestCatalogSource(String id, Supplier<? extends Collection<T>> loader,
+                                    Autosuggest.KeyGenerator<T> keyGenerator,
+                                    Autosuggest.LabelGenerator<T> labelGenerator,
+                                    Autosuggest.SearchStringGenerator<T> searchStringGenerator) {
+        this.id = Objects.requireNonNull(id, "id cannot be null");
+        this.loader = Objects.requireNonNull(loader, "loader cannot be null");
+        this.keyGenerator = keyGenerator;
+        this.labelGenerator = labelGenerator;
+        this.searchStringGenerator = searchStringGenerator;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the latest catalog, loading the first one if needed.
+     *
+     * @return the latest catalog
+     */
+    public AutosuggestCatalog<T> getCurrent() {
+        AutosuggestCatalog<T> catalog = current.get();
+        return catalog != null ? catalog : refresh();
+    }
+
+    /**
+     * Loads the items and publishes a new catalog version. Concurrent refreshes
+     * run one after the other, readers keep using the previous version
+     * meanwhile.
+     *
+     * @return the new catalog
+     * @throws IllegalStateException if the source was deserialized without a
+     *                               registered counterpart, and has no loader
+     */
+    public synchronized AutosuggestCatalog<T> refresh() {
+        if (loader == null) throw new IllegalStateException("Catalog source " + id + " was deserialized without its loader, register it to refresh it");
+        AutosuggestCatalog<T> catalog = new AutosuggestCatalog<>(id + "@" + (version + 1), loader.get(),
+            keyGenerator, labelGenerator, searchStringGenerator);
+        // Built here rather than by the first component sending it
+        catalog.toJson();
+        catalog.estimatePayloadBytes();
+        catalog.setSourceId(id);
+        version++;
+        current.set(catalog);
+        return catalog;
+    }
+
+    /**
+     * Refreshes the catalog periodically. A failed refresh is logged and the
+     * previous version is kept until the next one.
+     *
+     * @param executor executor running the refreshes
+     * @param period   time between the end of a refresh and the next one
+     * @param unit     unit of the period
+     * @return the scheduled task, to be cancelled when no longer needed
+     */
+    public ScheduledFuture<?> scheduleRefresh(ScheduledExecutorService executor, long period, TimeUnit unit) {
+        return executor.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                LoggerFactory.getLogger(AutosuggestCatalogSource.class).warn("Refreshing catalog {} failed", id, e);
+            }
+        }, period, period, unit);
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        return AutosuggestCatalogRegistry.findSource(id).orElse(null) == this ? new Reference(id) : this;
+    }
+
+    private Object readResolve() throws ObjectStreamException {
+        return AutosuggestCatalogRegistry.findSource(id).orElse(this);
+    }
+
+    /**
+     * Serialized form of a registered source.
+     */
+    private static class Reference implements Serializable {
+
+        private final String id;
+
+        Reference(String id) {
+            this.id = id;
+        }
+
+        private Object readResolve() throws ObjectStreamException {
+            return AutosuggestCatalogRegistry.findSource(id)
+                .orElseThrow(() -> new InvalidObjectException("No catalog source registered with id " + id));
+        }
+    }
+
+    /**
+     * Gets the version of the latest catalog.
+     *
+     * @return the version, 0 before the first load
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,106 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Server-side search index over the options of a catalog, used when the
+ * catalog is too big to be filtered on the client.
+ * <p>
+ * Search strings are normalized once. {@code STARTS_WITH} queries use a
+ * binary search over the sorted search strings, {@code CONTAINS} queries
+ * scan the normalized strings without re-normalizing them. Search strings
+ * are lower-cased with {@link Locale#ROOT}, like the client does regardless
+ * of the locale. Case-sensitive queries check the original search string of
+ * each case-insensitive candidate before counting it towards the limit.
+ *
+ * @param <T> the type of the items
+ */
+class AutosuggestIndex<T> {
+
+    private final List<Autosuggest.Option<T>> options;
+    private final String[] normalized;
+    private final int[] sorted;
+
+    AutosuggestIndex(Collection<Autosuggest.Option<T>> options) {
+        this.options = new ArrayList<>(options);
+        this.normalized = new String[this.options.size()];
+        for (int i = 0; i < normalized.length; i++) {
+            normalized[i] = normalize(this.options.get(i).getSearchStr());
+        }
+        this.sorted = IntStream.range(0, normalized.length).boxed()
+            .sorted(Comparator.comparing(i -> normalized[i]))
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    int size() {
+        return options.size();
+    }
+
+    /**
+     * Gets at most {@code limit} options whose search string matches the
+     * query.
+     */
+    Map<String, Autosuggest.Option<T>> search(String query, Autosuggest.SearchMatchingMode mode, boolean caseSensitive, int limit) {
+        String needle = normalize(query);
+        String exact = query == null ? "" : query.trim();
+        Map<String, Autosuggest.Option<T>> result = new LinkedHashMap<>();
+        if (mode == Autosuggest.SearchMatchingMode.CONTAINS) {
+            for (int i = 0; i < normalized.length && result.size() < limit; i++) {
+                if (normalized[i].contains(needle)) put(result, options.get(i), mode, caseSensitive, exact);
+            }
+        } else {
+            for (int i = lowerBound(needle); i < sorted.length && result.size() < limit; i++) {
+                if (!normalized[sorted[i]].startsWith(needle)) break;
+                put(result, options.get(sorted[i]), mode, caseSensitive, exact);
+            }
+        }
+        return result;
+    }
+
+    private void put(Map<String, Autosuggest.Option<T>> result, Autosuggest.Option<T> option,
+                     Autosuggest.SearchMatchingMode mode, boolean caseSensitive, String exact) {
+        if (caseSensitive) {
+            String searchStr = option.getSearchStr() == null ? "" : option.getSearchStr().trim();
+            boolean matches = mode == Autosuggest.SearchMatchingMode.CONTAINS ? searchStr.contains(exact) : searchStr.startsWith(exact);
+            if (!matches) return;
+        }
+        result.put(option.getKey(), option);
+    }
+
+    private int lowerBound(String needle) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (normalized[sorted[mid]].compareTo(needle) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
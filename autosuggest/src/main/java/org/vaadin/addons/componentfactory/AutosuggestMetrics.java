@@ -0,0 +1,113 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Receives measurements of the hot paths of {@link Autosuggest}.
+ * <p>
+ * Every measurement is tagged with the id set with
+ * {@link Autosuggest#setMetrics(AutosuggestMetrics, String)}. Implementations
+ * are called on request threads and on lazy provider threads, so they must
+ * be thread-safe and should not allocate: the values are passed as
+ * primitives and the component id is the same string instance on every call
+ * of a component. All methods do nothing by default.
+ *
+ * @see MicrometerAutosuggestMetrics
+ */
+public interface AutosuggestMetrics {
+
+    /**
+     * Metrics discarding every measurement.
+     */
+    AutosuggestMetrics NOOP = new AutosuggestMetrics() {
+    };
+
+    /**
+     * A lazy provider answered a query.
+     *
+     * @param componentId the component id
+     * @param nanos       time taken by the provider
+     */
+    default void recordProviderLatency(String componentId, long nanos) {
+    }
+
+    /**
+     * A lazy query was answered from the lazy cache.
+     *
+     * @param componentId the component id
+     */
+    default void recordCacheHit(String componentId) {
+    }
+
+    /**
+     * A lazy query was not found in the lazy cache.
+     *
+     * @param componentId the component id
+     */
+    default void recordCacheMiss(String componentId) {
+    }
+
+    /**
+     * The items of a component changed.
+     *
+     * @param componentId the component id
+     * @param count       the number of items held by the component
+     */
+    default void recordItemCount(String componentId, int count) {
+    }
+
+    /**
+     * Options were sent to the browser.
+     *
+     * @param componentId the component id
+     * @param bytes       estimated size of the options payload
+     */
+    default void recordPayloadBytes(String componentId, long bytes) {
+    }
+
+    /**
+     * A lazy query joined an identical in-flight query instead of calling
+     * the provider.
+     *
+     * @param componentId the component id
+     */
+    default void recordCoalescedRequest(String componentId) {
+    }
+
+    /**
+     * A lazy query was not served by the provider: it was rejected by the
+     * circuit breaker, replaced by a newer query while throttled, or its
+     * result arrived after a newer query was made.
+     *
+     * @param componentId the component id
+     */
+    default void recordDroppedRequest(String componentId) {
+    }
+
+    /**
+     * Items were set on a component.
+     *
+     * @param componentId the component id
+     * @param nanos       time taken to build and apply the options
+     */
+    default void recordSetItemsTime(String componentId, long nanos) {
+    }
+}
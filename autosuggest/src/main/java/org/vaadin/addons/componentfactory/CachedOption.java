@@ -0,0 +1,62 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.*;
+
+/**
+ * Serialized form of an option stored in a {@link LazyResultCache}: the key,
+ * label and search string, plus the item serialized with Java serialization.
+ */
+public final class CachedOption implements Serializable {
+
+    private final String key;
+    private final String label;
+    private final String searchStr;
+    private final byte[] item;
+
+    public CachedOption(String key, String label, String searchStr, byte[] item) {
+        this.key = key;
+        this.label = label;
+        this.searchStr = searchStr;
+        this.item = item;
+    }
+
+    public String getKey() { return key; }
+    public String getLabel() { return label; }
+    public String getSearchStr() { return searchStr; }
+    public byte[] getItem() { return item; }
+
+    static CachedOption of(Autosuggest.Option<?> option) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(option.getItem());
+        }
+        return new CachedOption(option.getKey(), option.getLabel(), option.getSearchStr(), bytes.toByteArray());
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> Autosuggest.Option<T> toOption() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(item))) {
+            return new Autosuggest.Option<>(key, label, searchStr, (T) in.readObject());
+        }
+    }
+}
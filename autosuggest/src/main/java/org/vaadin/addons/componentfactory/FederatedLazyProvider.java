@@ -0,0 +1,166 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Lazy provider querying several sources in parallel.
+ * <p>
+ * Every source is queried at the same time on the executor and gets its own
+ * timeout. The results that arrived in time are merged by source rank (lower
+ * rank first) and de-duplicated by the key produced by the
+ * {@link Autosuggest.KeyGenerator}, the first occurrence winning. Sources
+ * that fail or miss their deadline are left out, so the slowest source does
+ * not set the latency of the field.
+ * <p>
+ * A source that misses its deadline is not interrupted, its query keeps
+ * running on the executor until it returns and the result is discarded. Use
+ * a dedicated executor sized for the expected number of concurrent queries
+ * times the number of sources, so that slow sources cannot starve other work.
+ *
+ * <pre>
+ * ExecutorService executor = Executors.newFixedThreadPool(16);
+ * FederatedLazyProvider&lt;Product&gt; provider = new FederatedLazyProvider&lt;&gt;(Product::getSku, executor);
+ * provider.addSource("history", historyService::search, 50, 0);
+ * provider.addSource("catalog", catalogService::search, 200, 1);
+ * autosuggest.setLazyProviderSimple(provider);
+ * </pre>
+ *
+ * @param <T> the type of the items
+ */
+public class FederatedLazyProvider<T> implements Autosuggest.LazyProviderFunctionSimple<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FederatedLazyProvider.class);
+
+    private final Autosuggest.KeyGenerator<T> keyGenerator;
+    private final Executor executor;
+    private final List<Source<T>> sources = new CopyOnWriteArrayList<>();
+    private int maxResults = Integer.MAX_VALUE;
+
+    /**
+     * Creates a federated provider.
+     *
+     * @param keyGenerator generates the keys used to de-duplicate results, it
+     *                     should match the key generator of the component
+     * @param executor     executor querying the sources, it should be
+     *                     dedicated to them as slow sources keep running past
+     *                     their timeout
+     */
+    public FederatedLazyProvider(Autosuggest.KeyGenerator<T> keyGenerator, Executor executor) {
+        this.keyGenerator = Objects.requireNonNull(keyGenerator, "keyGenerator cannot be null");
+        this.executor = Objects.requireNonNull(executor, "executor cannot be null");
+    }
+
+    /**
+     * Adds a source.
+     *
+     * @param name          name of the source
+     * @param source        the source
+     * @param timeoutMillis time the source has to answer, from the start of
+     *                      the query
+     * @param rank          rank of the source results, lower ranks come first
+     * @return this provider
+     */
+    public FederatedLazyProvider<T> addSource(String name, Autosuggest.LazyProviderFunctionSimple<T> source, long timeoutMillis, int rank) {
+        sources.add(new Source<>(name, source, timeoutMillis, rank));
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of merged results.
+     *
+     * @param maxResults maximum number of results
+     * @return this provider
+     */
+    public FederatedLazyProvider<T> setMaxResults(int maxResults) {
+        this.maxResults = maxResults;
+        return this;
+    }
+
+    @Override
+    public List<T> refresh(String searchQ) {
+        long start = System.nanoTime();
+        List<Source<T>> ranked = new ArrayList<>(sources);
+        ranked.sort(Comparator.comparingInt(source -> source.rank));
+
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>();
+        for (Source<T> source : ranked) {
+            CompletableFuture<List<T>> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> source.provider.refresh(searchQ), executor);
+            } catch (RejectedExecutionException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            futures.add(future);
+        }
+
+        Map<String, T> merged = new LinkedHashMap<>();
+        for (int i = 0; i < ranked.size(); i++) {
+            Source<T> source = ranked.get(i);
+            long remaining = source.timeoutMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            List<T> results = getBefore(source, futures.get(i), remaining, searchQ);
+            if (results == null) continue;
+            for (T item : results) {
+                if (merged.size() >= maxResults) break;
+                merged.putIfAbsent(keyGenerator.generate(item), item);
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    private List<T> getBefore(Source<T> source, CompletableFuture<List<T>> future, long remainingMillis, String searchQ) {
+        // A source past its deadline is left running, cancelling a CompletableFuture does not interrupt its task
+        try {
+            if (future.isDone()) return future.getNow(null);
+            if (remainingMillis <= 0) throw new TimeoutException();
+            return future.get(remainingMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.debug("Source {} timed out for query '{}'", source.name, searchQ);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | CompletionException | CancellationException e) {
+            LOGGER.debug("Source {} failed for query '{}'", source.name, searchQ, e);
+            return null;
+        }
+    }
+
+    private static class Source<T> {
+        private final String name;
+        private final Autosuggest.LazyProviderFunctionSimple<T> provider;
+        private final long timeoutMillis;
+        private final int rank;
+
+        private Source(String name, Autosuggest.LazyProviderFunctionSimple<T> provider, long timeoutMillis, int rank) {
+            this.name = name;
+            this.provider = provider;
+            this.timeoutMillis = timeoutMillis;
+            this.rank = rank;
+        }
+    }
+}
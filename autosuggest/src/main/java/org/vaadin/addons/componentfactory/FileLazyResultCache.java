@@ -0,0 +1,133 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+/**
+ * {@link LazyResultCache} stored in a directory, one sub-directory per
+ * namespace and one file per query.
+ * <p>
+ * Meant as a stand-in for a distributed cache when testing: several nodes
+ * (or JVMs) pointing to the same directory share their results and
+ * invalidations. Files are written to a temporary file first and then moved,
+ * so readers never see partial entries.
+ */
+public class FileLazyResultCache implements LazyResultCache {
+
+    private final Path directory;
+    private final Executor executor;
+
+    /**
+     * Creates a cache in the directory.
+     *
+     * @param directory the directory to store the entries in
+     * @param executor  executor running the blocking file operations, which
+     *                  should not be the common fork-join pool
+     */
+    public FileLazyResultCache(Path directory, Executor executor) {
+        this.directory = Objects.requireNonNull(directory, "directory cannot be null");
+        this.executor = Objects.requireNonNull(executor, "executor cannot be null");
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Optional<List<CachedOption>>> get(String namespace, String key) {
+        return CompletableFuture.supplyAsync(() -> {
+            Path file = entry(namespace, key);
+            if (!Files.exists(file)) return Optional.empty();
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                return Optional.of((List<CachedOption>) in.readObject());
+            } catch (NoSuchFileException e) {
+                return Optional.empty();
+            } catch (IOException | ClassNotFoundException e) {
+                throw new UncheckedIOException(new IOException("Cannot read cache entry " + file, e));
+            }
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> put(String namespace, String key, List<CachedOption> options) {
+        return CompletableFuture.runAsync(() -> {
+            Path file = entry(namespace, key);
+            try {
+                Files.createDirectories(file.getParent());
+                Path temp = Files.createTempFile(file.getParent(), "entry", ".tmp");
+                try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeObject(new ArrayList<>(options));
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> invalidate(String namespace, String key) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                Files.deleteIfExists(entry(namespace, key));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> invalidate(String namespace) {
+        return CompletableFuture.runAsync(() -> {
+            Path dir = directory.resolve(encode(namespace));
+            if (!Files.isDirectory(dir)) return;
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    private Path entry(String namespace, String key) {
+        return directory.resolve(encode(namespace)).resolve(encode(key));
+    }
+
+    private static String encode(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 120) {
+            // Keep file names within the limits of common file systems
+            try {
+                bytes = MessageDigest.getInstance("SHA-256").digest(bytes);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            return "h" + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        }
+        return "k" + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,233 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.vaadin.flow.server.VaadinSession;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded recency and frequency ranking of the items selected by one user.
+ * <p>
+ * Every selection adds 1 to the score of the item, and scores decay
+ * exponentially with the given half-life, so items picked often and lately
+ * rank first. Entries are kept in an open-addressing table of primitive
+ * arrays; once it holds the maximum number of entries, the entry with the
+ * lowest score is evicted.
+ *
+ * @param <T> the type of the items
+ * @see Autosuggest#setFrecencyRanking(String, int)
+ */
+public class FrecencyTracker<T> implements Serializable {
+
+    private final int maxEntries;
+    private final double decayPerMilli;
+    private final int mask;
+    private final String[] keys;
+    private final double[] scores;
+    private final long[] updated;
+    private final Object[] items;
+    private int size = 0;
+
+    /**
+     * Creates a tracker.
+     *
+     * @param maxEntries     maximum number of items tracked
+     * @param halfLifeMillis time after which a selection counts half
+     */
+    public FrecencyTracker(int maxEntries, long halfLifeMillis) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries must be positive");
+        if (halfLifeMillis < 1) throw new IllegalArgumentException("halfLifeMillis must be positive");
+        this.maxEntries = maxEntries;
+        this.decayPerMilli = Math.log(2) / halfLifeMillis;
+        // At most half full, so probe sequences stay short
+        int capacity = Integer.highestOneBit(maxEntries * 2 - 1) << 1;
+        this.mask = capacity - 1;
+        this.keys = new String[capacity];
+        this.scores = new double[capacity];
+        this.updated = new long[capacity];
+        this.items = new Object[capacity];
+    }
+
+    /**
+     * Gets the tracker of a session for the given namespace, creating it if
+     * needed.
+     *
+     * @param session        the session of the user
+     * @param namespace      the namespace, e.g. one per kind of items
+     * @param maxEntries     maximum number of items tracked, used when the
+     *                       tracker is created
+     * @param halfLifeMillis half-life of a selection, used when the tracker
+     *                       is created
+     * @param <T>            the type of the items
+     * @return the tracker
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> FrecencyTracker<T> get(VaadinSession session, String namespace, int maxEntries, long halfLifeMillis) {
+        SessionTrackers trackers = session.getAttribute(SessionTrackers.class);
+        if (trackers == null) {
+            trackers = new SessionTrackers();
+            session.setAttribute(SessionTrackers.class, trackers);
+        }
+        return (FrecencyTracker<T>) trackers.trackers.computeIfAbsent(namespace, ns -> new FrecencyTracker<>(maxEntries, halfLifeMillis));
+    }
+
+    /**
+     * Records a selection.
+     *
+     * @param key  the key of the selected item
+     * @param item the selected item
+     */
+    public void record(String key, T item) {
+        record(key, item, System.currentTimeMillis());
+    }
+
+    synchronized void record(String key, T item, long now) {
+        int slot = find(key);
+        if (slot < 0) {
+            if (size >= maxEntries) removeAt(lowest(now));
+            slot = hash(key) & mask;
+            while (keys[slot] != null) slot = (slot + 1) & mask;
+            keys[slot] = key;
+            scores[slot] = 0;
+            updated[slot] = now;
+            size++;
+        }
+        scores[slot] = score(slot, now) + 1;
+        updated[slot] = now;
+        items[slot] = item;
+    }
+
+    /**
+     * Gets the current score of an item.
+     *
+     * @param key the key of the item
+     * @return the decayed score, 0 if the item is not tracked
+     */
+    public synchronized double getScore(String key) {
+        int slot = find(key);
+        return slot < 0 ? 0 : score(slot, System.currentTimeMillis());
+    }
+
+    /**
+     * Gets the keys of the items with the highest scores.
+     *
+     * @param limit maximum number of keys
+     * @return the keys, highest score first
+     */
+    public synchronized List<String> getTopKeys(int limit) {
+        List<String> top = new ArrayList<>();
+        for (int slot : ranked(limit)) top.add(keys[slot]);
+        return top;
+    }
+
+    /**
+     * Gets the items with the highest scores.
+     *
+     * @param limit maximum number of items
+     * @return the items, highest score first
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized Map<String, T> getTopItems(int limit) {
+        Map<String, T> top = new LinkedHashMap<>();
+        for (int slot : ranked(limit)) top.put(keys[slot], (T) items[slot]);
+        return top;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private int[] ranked(int limit) {
+        long now = System.currentTimeMillis();
+        Integer[] slots = new Integer[size];
+        int n = 0;
+        for (int slot = 0; slot < keys.length; slot++) if (keys[slot] != null) slots[n++] = slot;
+        Arrays.sort(slots, Comparator.comparingDouble((Integer slot) -> score(slot, now)).reversed());
+        int[] ranked = new int[Math.min(limit, n)];
+        for (int i = 0; i < ranked.length; i++) ranked[i] = slots[i];
+        return ranked;
+    }
+
+    private double score(int slot, long now) {
+        return scores[slot] * Math.exp(-decayPerMilli * Math.max(0, now - updated[slot]));
+    }
+
+    private int find(String key) {
+        for (int slot = hash(key) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot].equals(key)) return slot;
+        }
+        return -1;
+    }
+
+    private int lowest(long now) {
+        int lowest = -1;
+        double lowestScore = Double.MAX_VALUE;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] == null) continue;
+            double score = score(slot, now);
+            if (score < lowestScore) {
+                lowestScore = score;
+                lowest = slot;
+            }
+        }
+        return lowest;
+    }
+
+    /**
+     * Removes an entry, shifting back the following entries of its probe
+     * sequence so lookups never stop at the freed slot.
+     */
+    private void removeAt(int slot) {
+        int hole = slot;
+        keys[hole] = null;
+        items[hole] = null;
+        size--;
+        for (int i = (hole + 1) & mask; keys[i] != null; i = (i + 1) & mask) {
+            int home = hash(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                scores[hole] = scores[i];
+                updated[hole] = updated[i];
+                items[hole] = items[i];
+                keys[i] = null;
+                items[i] = null;
+                hole = i;
+            }
+        }
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    static class SessionTrackers implements Serializable {
+        private final Map<String, FrecencyTracker<?>> trackers = new HashMap<>();
+    }
+}
@@ -0,0 +1,151 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link LazyResultCache} kept in the memory of the JVM, shared by all the
+ * sessions of the node. It holds at most the given number of entries over
+ * all namespaces, evicting the least recently used one, and optionally
+ * expires entries after a time to live.
+ */
+public class InProcessLazyResultCache implements LazyResultCache {
+
+    private final int maxEntries;
+    private final long timeToLiveMillis;
+    private final LinkedHashMap<Key, Entry> entries;
+
+    /**
+     * Creates a cache whose entries do not expire.
+     *
+     * @param maxEntries the maximum number of entries, over all namespaces
+     */
+    public InProcessLazyResultCache(int maxEntries) {
+        this(maxEntries, 0);
+    }
+
+    /**
+     * Creates a cache whose entries expire.
+     *
+     * @param maxEntries       the maximum number of entries, over all
+     *                         namespaces
+     * @param timeToLiveMillis the time an entry is served after it was put,
+     *                         0 to keep it until evicted or invalidated
+     */
+    public InProcessLazyResultCache(int maxEntries, long timeToLiveMillis) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be positive");
+        if (timeToLiveMillis < 0) throw new IllegalArgumentException("timeToLiveMillis cannot be negative");
+        this.maxEntries = maxEntries;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > InProcessLazyResultCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Gets the number of entries, including expired ones not removed yet.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public CompletableFuture<Optional<List<CachedOption>>> get(String namespace, String key) {
+        List<CachedOption> options;
+        synchronized (this) {
+            Key k = new Key(namespace, key);
+            Entry entry = entries.get(k);
+            if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+                entries.remove(k);
+                entry = null;
+            }
+            options = entry == null ? null : entry.options;
+        }
+        return CompletableFuture.completedFuture(Optional.ofNullable(options));
+    }
+
+    @Override
+    public CompletableFuture<Void> put(String namespace, String key, List<CachedOption> options) {
+        long expiresAt = timeToLiveMillis > 0 ? System.currentTimeMillis() + timeToLiveMillis : Long.MAX_VALUE;
+        Entry entry = new Entry(Collections.unmodifiableList(new ArrayList<>(options)), expiresAt);
+        synchronized (this) {
+            entries.put(new Key(namespace, key), entry);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> invalidate(String namespace, String key) {
+        synchronized (this) {
+            entries.remove(new Key(namespace, key));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> invalidate(String namespace) {
+        synchronized (this) {
+            entries.keySet().removeIf(k -> k.namespace.equals(namespace));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private static final class Key {
+        private final String namespace;
+        private final String key;
+
+        private Key(String namespace, String key) {
+            this.namespace = namespace;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return namespace.equals(other.namespace) && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * namespace.hashCode() + key.hashCode();
+        }
+    }
+
+    private static final class Entry {
+        private final List<CachedOption> options;
+        private final long expiresAt;
+
+        private Entry(List<CachedOption> options, long expiresAt) {
+            this.options = options;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.Serializable;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Aggregates per-phase durations of keystrokes traced by {@link Autosuggest}
+ * components, see {@link Autosuggest#setTracing(KeystrokeTracer)}. One tracer
+ * can be shared by any number of components, in any session.
+ */
+public class KeystrokeTracer implements Serializable {
+
+    /**
+     * Phases of a keystroke, from the input event in the browser to the
+     * options rendered for it.
+     */
+    public enum Phase {
+        /**
+         * Input debounce plus network round trip: the total time minus the
+         * server and client render times. Lazy queries only.
+         */
+        DEBOUNCE_AND_NETWORK,
+        /**
+         * Server time to handle the lazy data request, including the lazy
+         * cache, the provider and setting the items.
+         */
+        LAZY_REQUEST,
+        /**
+         * Lazy provider call.
+         */
+        PROVIDER,
+        /**
+         * Setting the options returned by the provider.
+         */
+        SET_ITEMS,
+        /**
+         * Client time from the response (or the input, when filtering in the
+         * browser) to the options painted.
+         */
+        CLIENT_RENDER,
+        /**
+         * Client time from the input to the options painted.
+         */
+        TOTAL
+    }
+
+    private final Map<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+
+    public KeystrokeTracer() {
+        for (Phase phase : Phase.values()) histograms.put(phase, new LatencyHistogram());
+    }
+
+    /**
+     * Records the duration of a phase.
+     *
+     * @param phase the phase
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(Phase phase, long nanos) {
+        histograms.get(phase).record(nanos);
+    }
+
+    /**
+     * Gets the durations recorded for a phase.
+     *
+     * @param phase the phase
+     * @return the histogram of the phase
+     */
+    public LatencyHistogram getHistogram(Phase phase) {
+        return histograms.get(phase);
+    }
+
+    /**
+     * Removes all recorded durations.
+     */
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder();
+        histograms.forEach((phase, histogram) -> summary.append(phase).append(": ").append(histogram).append('\n'));
+        return summary.toString();
+    }
+}
@@ -0,0 +1,88 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.Serializable;
+
+/**
+ * Circuit breaker for a lazy provider. After a number of consecutive
+ * failures (errors or missed latency budgets) the provider is not called
+ * until the cooldown period has elapsed. The circuit is then half-open: a
+ * single trial call is let through, which closes the circuit on success and
+ * opens it for another cooldown on failure. Other calls are refused while the
+ * trial runs, or for a cooldown if its outcome is never recorded.
+ * <p>
+ * Each call must have exactly one outcome recorded.
+ */
+class LazyCircuitBreaker implements Serializable {
+
+    private final int failureThreshold;
+    private final long cooldownMillis;
+    private int consecutiveFailures = 0;
+    private long openUntil = 0;
+    private boolean trial = false;
+
+    LazyCircuitBreaker(int failureThreshold, long cooldownMillis) {
+        this.failureThreshold = failureThreshold;
+        this.cooldownMillis = cooldownMillis;
+    }
+
+    synchronized boolean allowRequest() {
+        if (openUntil == 0) return true;
+        long now = System.currentTimeMillis();
+        if (now < openUntil) return false;
+        // Half-open, this call is the trial
+        trial = true;
+        openUntil = now + cooldownMillis;
+        return true;
+    }
+
+    /**
+     * Tells whether the circuit is open or half-open, without admitting a
+     * trial call.
+     */
+    synchronized boolean isOpen() {
+        return openUntil != 0;
+    }
+
+    synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        openUntil = 0;
+        trial = false;
+    }
+
+    synchronized void recordFailure() {
+        if (trial) {
+            trial = false;
+            open();
+            return;
+        }
+        // Late outcome of a call made before the circuit opened
+        if (openUntil != 0) return;
+        consecutiveFailures++;
+        if (consecutiveFailures >= failureThreshold) open();
+    }
+
+    private void open() {
+        openUntil = System.currentTimeMillis() + cooldownMillis;
+        consecutiveFailures = 0;
+    }
+}
@@ -0,0 +1,87 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.vaadin.flow.server.VaadinSession;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Helpers for the speculative prefetch of lazy query results.
+ * <p>
+ * After a lazy query has been served, the characters that most often follow
+ * the query in the returned search strings are the most probable next
+ * keystrokes, so those extended queries are fetched ahead of time.
+ */
+class LazyPrefetcher {
+
+    private LazyPrefetcher() {
+    }
+
+    /**
+     * Predicts the most probable next queries from the character following
+     * the query in each option's search string.
+     */
+    static List<String> predictNextQueries(String query, Collection<? extends Autosuggest.AutosuggestTemplateModel.FOption> options,
+                                           boolean caseSensitive, Autosuggest.SearchMatchingMode mode, int max) {
+        String needle = caseSensitive ? query.trim() : query.trim().toLowerCase(Locale.ROOT);
+        Map<Character, Integer> frequencies = new HashMap<>();
+        for (Autosuggest.AutosuggestTemplateModel.FOption option : options) {
+            if (option.getSearchStr() == null) continue;
+            String searchStr = caseSensitive ? option.getSearchStr().trim() : option.getSearchStr().trim().toLowerCase(Locale.ROOT);
+            int index = mode == Autosuggest.SearchMatchingMode.CONTAINS ? searchStr.indexOf(needle) : (searchStr.startsWith(needle) ? 0 : -1);
+            int next = index + needle.length();
+            if (index < 0 || next >= searchStr.length()) continue;
+            char c = searchStr.charAt(next);
+            if (Character.isWhitespace(c)) continue;
+            frequencies.merge(c, 1, Integer::sum);
+        }
+        return frequencies.entrySet().stream()
+            .sorted(Map.Entry.<Character, Integer>comparingByValue().reversed())
+            .limit(max)
+            .map(entry -> query.trim() + entry.getKey())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the semaphore bounding the number of concurrent prefetches of a
+     * session, shared by all its components.
+     */
+    static Semaphore getSessionBudget(VaadinSession session, int permits) {
+        SessionBudget budget = session.getAttribute(SessionBudget.class);
+        if (budget == null) {
+            budget = new SessionBudget(permits);
+            session.setAttribute(SessionBudget.class, budget);
+        }
+        return budget.semaphore;
+    }
+
+    static class SessionBudget implements Serializable {
+        private final Semaphore semaphore;
+
+        SessionBudget(int permits) {
+            this.semaphore = new Semaphore(permits);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, least recently used cache of lazy query results of one
+ * {@link Autosuggest}. Keys combine the query with the case sensitivity and
+ * the search matching mode, the same way the client-side cache does. Results
+ * are stored as {@link #snapshot(Map) snapshots}, never as the live items map
+ * of the component.
+ */
+class LazyQueryCache<T> extends LinkedHashMap<String, Map<String, Autosuggest.Option<T>>> {
+
+    private final int maxSize;
+
+    LazyQueryCache(int maxSize) {
+        super(16, 0.75f, true);
+        this.maxSize = maxSize;
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    static String key(String query, boolean caseSensitive, String searchMatchingMode) {
+        return caseSensitive + "|" + searchMatchingMode + "|" + query.trim();
+    }
+
+    /**
+     * Copies a result so that it can be cached and served without being
+     * changed by later responses.
+     */
+    static <T> Map<String, Autosuggest.Option<T>> snapshot(Map<String, Autosuggest.Option<T>> options) {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(options));
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Map<String, Autosuggest.Option<T>>> eldest) {
+        return size() > maxSize;
+    }
+}
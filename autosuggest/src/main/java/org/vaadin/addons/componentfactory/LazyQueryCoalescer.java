@@ -0,0 +1,69 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Application-wide single-flight execution of lazy queries: concurrent
+ * identical queries to the same provider share one in-flight computation.
+ * Entries are removed as soon as the computation completes, so nothing is
+ * cached here.
+ */
+class LazyQueryCoalescer {
+
+    private static final ConcurrentHashMap<String, CompletableFuture<?>> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    private LazyQueryCoalescer() {
+    }
+
+    /**
+     * Gets the in-flight computation of the query, or starts it with the
+     * given call. The query is expected to be a lazy cache key (see
+     * {@link LazyQueryCache#key(String, boolean, String)}), so that only
+     * queries with the same case sensitivity and matching mode are shared.
+     */
+    @SuppressWarnings("unchecked")
+    static <V> CompletableFuture<V> execute(String providerId, String query, Supplier<CompletableFuture<V>> call) {
+        String key = providerId + '\u0000' + query;
+        CompletableFuture<V> shared = new CompletableFuture<>();
+        CompletableFuture<?> existing = IN_FLIGHT.putIfAbsent(key, shared);
+        if (existing != null) return (CompletableFuture<V>) existing;
+
+        try {
+            call.get().whenComplete((value, error) -> {
+                IN_FLIGHT.remove(key, shared);
+                if (error != null) shared.completeExceptionally(error);
+                else shared.complete(value);
+            });
+        } catch (RuntimeException e) {
+            IN_FLIGHT.remove(key, shared);
+            shared.completeExceptionally(e);
+        }
+        return shared;
+    }
+
+    static int inFlight() {
+        return IN_FLIGHT.size();
+    }
+}
@@ -0,0 +1,77 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cache of lazy query results that can be shared between nodes.
+ * <p>
+ * Results are stored per namespace (typically one per catalog or provider)
+ * and key (the normalized query), as lists of {@link CachedOption}s whose
+ * items are serialized, so implementations can keep them outside of the JVM.
+ * All operations are asynchronous. Set on a component with
+ * {@link Autosuggest#setLazyResultCache(LazyResultCache, String)}.
+ *
+ * @see InProcessLazyResultCache
+ * @see FileLazyResultCache
+ */
+public interface LazyResultCache {
+
+    /**
+     * Gets the cached result of a query.
+     *
+     * @param namespace the namespace
+     * @param key       the query key
+     * @return the cached options, or an empty optional on a miss
+     */
+    CompletableFuture<Optional<List<CachedOption>>> get(String namespace, String key);
+
+    /**
+     * Stores the result of a query.
+     *
+     * @param namespace the namespace
+     * @param key       the query key
+     * @param options   the options to cache
+     * @return a future completed once stored
+     */
+    CompletableFuture<Void> put(String namespace, String key, List<CachedOption> options);
+
+    /**
+     * Removes the cached result of a query.
+     *
+     * @param namespace the namespace
+     * @param key       the query key
+     * @return a future completed once removed
+     */
+    CompletableFuture<Void> invalidate(String namespace, String key);
+
+    /**
+     * Removes all the cached results of a namespace, e.g. after the catalog
+     * it was computed from changed.
+     *
+     * @param namespace the namespace
+     * @return a future completed once removed
+     */
+    CompletableFuture<Void> invalidate(String namespace);
+}
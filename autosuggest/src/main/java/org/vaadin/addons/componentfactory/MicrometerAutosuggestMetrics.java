@@ -0,0 +1,132 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AutosuggestMetrics} publishing to a Micrometer {@link MeterRegistry}.
+ * <p>
+ * Micrometer is an optional dependency of the add-on, it must be added to
+ * the application to use this class. Meters are named
+ * <code>autosuggest.*</code> and tagged with <code>component</code>; they are
+ * created on the first measurement of each component id and reused
+ * afterwards, so recording does not allocate.
+ * <ul>
+ * <li><code>autosuggest.provider.latency</code>: timer with percentile
+ * histogram</li>
+ * <li><code>autosuggest.lazy.cache</code>: counter tagged
+ * <code>result=hit|miss</code></li>
+ * <li><code>autosuggest.items</code>: distribution summary of the item
+ * count set on the components</li>
+ * <li><code>autosuggest.payload</code>: distribution summary in bytes</li>
+ * <li><code>autosuggest.requests.coalesced</code>,
+ * <code>autosuggest.requests.dropped</code>: counters</li>
+ * <li><code>autosuggest.setitems</code>: timer</li>
+ * </ul>
+ */
+public class MicrometerAutosuggestMetrics implements AutosuggestMetrics {
+
+    private final MeterRegistry registry;
+    private final ConcurrentHashMap<String, Meters> meters = new ConcurrentHashMap<>();
+
+    public MicrometerAutosuggestMetrics(MeterRegistry registry) {
+        this.registry = Objects.requireNonNull(registry, "registry cannot be null");
+    }
+
+    @Override
+    public void recordProviderLatency(String componentId, long nanos) {
+        meters(componentId).providerLatency.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordCacheHit(String componentId) {
+        meters(componentId).cacheHits.increment();
+    }
+
+    @Override
+    public void recordCacheMiss(String componentId) {
+        meters(componentId).cacheMisses.increment();
+    }
+
+    @Override
+    public void recordItemCount(String componentId, int count) {
+        meters(componentId).itemCount.record(count);
+    }
+
+    @Override
+    public void recordPayloadBytes(String componentId, long bytes) {
+        meters(componentId).payloadBytes.record(bytes);
+    }
+
+    @Override
+    public void recordCoalescedRequest(String componentId) {
+        meters(componentId).coalesced.increment();
+    }
+
+    @Override
+    public void recordDroppedRequest(String componentId) {
+        meters(componentId).dropped.increment();
+    }
+
+    @Override
+    public void recordSetItemsTime(String componentId, long nanos) {
+        meters(componentId).setItems.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Meters meters(String componentId) {
+        Meters existing = meters.get(componentId);
+        return existing != null ? existing : meters.computeIfAbsent(componentId, id -> new Meters(registry, id));
+    }
+
+    private static class Meters {
+
+        final Timer providerLatency;
+        final Counter cacheHits;
+        final Counter cacheMisses;
+        final DistributionSummary itemCount;
+        final DistributionSummary payloadBytes;
+        final Counter coalesced;
+        final Counter dropped;
+        final Timer setItems;
+
+        Meters(MeterRegistry registry, String componentId) {
+            Tags tags = Tags.of("component", componentId);
+            providerLatency = Timer.builder("autosuggest.provider.latency").tags(tags)
+                .publishPercentileHistogram().register(registry);
+            cacheHits = Counter.builder("autosuggest.lazy.cache").tags(tags).tag("result", "hit").register(registry);
+            cacheMisses = Counter.builder("autosuggest.lazy.cache").tags(tags).tag("result", "miss").register(registry);
+            itemCount = DistributionSummary.builder("autosuggest.items").tags(tags).register(registry);
+            payloadBytes = DistributionSummary.builder("autosuggest.payload").tags(tags).baseUnit("bytes").register(registry);
+            coalesced = Counter.builder("autosuggest.requests.coalesced").tags(tags).register(registry);
+            dropped = Counter.builder("autosuggest.requests.dropped").tags(tags).register(registry);
+            setItems = Timer.builder("autosuggest.setitems").tags(tags).register(registry);
+        }
+    }
+}
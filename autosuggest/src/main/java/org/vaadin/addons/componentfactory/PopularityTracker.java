@@ -0,0 +1,211 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Application-wide count of the selections of each item, for ranking
+ * suggestions by popularity.
+ * <p>
+ * Selections are counted per namespace (e.g. a catalog id) and item key in
+ * {@link LongAdder}s, which spread concurrent increments over several cells
+ * instead of contending on one lock. At most once per snapshot interval, the
+ * counts since the previous snapshot are added to the decayed scores of the
+ * previous ranking, producing a new immutable {@link Ranking} that readers
+ * use without locking. Snapshots are taken by the first reader after the
+ * interval elapsed, or with {@link #snapshot()}.
+ *
+ * @see Autosuggest#setPopularityRanking(String, int)
+ */
+public class PopularityTracker {
+
+    private static volatile PopularityTracker defaultTracker = new PopularityTracker(TimeUnit.MINUTES.toMillis(1), 0.9, 1000);
+
+    private final long snapshotIntervalMillis;
+    private final double decay;
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, Namespace> namespaces = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a tracker.
+     *
+     * @param snapshotIntervalMillis minimum time between two rankings
+     * @param decay                  factor applied to the previous scores at
+     *                               each snapshot, between 0 and 1
+     * @param maxEntries             maximum number of items kept in a ranking
+     */
+    public PopularityTracker(long snapshotIntervalMillis, double decay, int maxEntries) {
+        if (decay < 0 || decay > 1) throw new IllegalArgumentException("decay must be between 0 and 1");
+        this.snapshotIntervalMillis = snapshotIntervalMillis;
+        this.decay = decay;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Gets the tracker used by components without their own tracker. It takes
+     * a snapshot at most every minute, with a decay of 0.9, and ranks up to
+     * 1000 items per namespace.
+     *
+     * @return the default tracker
+     */
+    public static PopularityTracker getDefault() {
+        return defaultTracker;
+    }
+
+    /**
+     * Replaces the default tracker.
+     *
+     * @param tracker the new default tracker
+     */
+    public static void setDefault(PopularityTracker tracker) {
+        defaultTracker = Objects.requireNonNull(tracker, "tracker cannot be null");
+    }
+
+    /**
+     * Counts a selection.
+     *
+     * @param namespace the namespace of the item
+     * @param key       the key of the item
+     */
+    public void record(String namespace, String key) {
+        Namespace ns = namespaces.get(namespace);
+        if (ns == null) ns = namespaces.computeIfAbsent(namespace, n -> new Namespace());
+        LongAdder counter = ns.counters.get(key);
+        if (counter == null) {
+            LongAdder created = new LongAdder();
+            counter = ns.counters.putIfAbsent(key, created);
+            if (counter == null) counter = created;
+        }
+        counter.increment();
+    }
+
+    /**
+     * Gets the latest ranking of a namespace, taking a new snapshot first if
+     * the interval elapsed.
+     *
+     * @param namespace the namespace
+     * @return the ranking, empty if nothing was recorded
+     */
+    public Ranking getRanking(String namespace) {
+        Namespace ns = namespaces.get(namespace);
+        if (ns == null) return Ranking.EMPTY;
+        if (System.currentTimeMillis() - ns.ranking.timestamp >= snapshotIntervalMillis) snapshot(ns);
+        return ns.ranking;
+    }
+
+    /**
+     * Takes a snapshot of every namespace now.
+     */
+    public void snapshot() {
+        namespaces.values().forEach(this::snapshot);
+    }
+
+    private void snapshot(Namespace ns) {
+        // A single thread builds the snapshot, the others keep using the previous one
+        if (!ns.snapshotting.compareAndSet(false, true)) return;
+        try {
+            Ranking previous = ns.ranking;
+            Map<String, Double> scores = new HashMap<>();
+            previous.scores.forEach((key, score) -> scores.put(key, score * decay));
+            ns.counters.forEach((key, counter) -> {
+                long count = counter.sumThenReset();
+                if (count > 0) scores.merge(key, (double) count, Double::sum);
+            });
+            List<Map.Entry<String, Double>> entries = new ArrayList<>(scores.entrySet());
+            entries.removeIf(entry -> entry.getValue() < 0.01);
+            entries.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+            if (entries.size() > maxEntries) entries = entries.subList(0, maxEntries);
+            Ranking ranking = new Ranking(entries, previous.version + 1, System.currentTimeMillis());
+            // Idle counters of items that fell out of the ranking are dropped to bound memory, at worst losing
+            // a selection made while this runs
+            ns.counters.entrySet().removeIf(entry -> entry.getValue().sum() == 0 && !ranking.scores.containsKey(entry.getKey()));
+            ns.ranking = ranking;
+        } finally {
+            ns.snapshotting.set(false);
+        }
+    }
+
+    private static class Namespace {
+        final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+        final AtomicBoolean snapshotting = new AtomicBoolean();
+        volatile Ranking ranking = Ranking.EMPTY;
+    }
+
+    /**
+     * Immutable ranking of the items of a namespace, most popular first.
+     */
+    public static final class Ranking {
+
+        static final Ranking EMPTY = new Ranking(Collections.emptyList(), 0, 0);
+
+        private final List<String> keys;
+        private final Map<String, Double> scores;
+        private final long version;
+        private final long timestamp;
+
+        private Ranking(List<Map.Entry<String, Double>> entries, long version, long timestamp) {
+            List<String> keys = new ArrayList<>(entries.size());
+            Map<String, Double> scores = new HashMap<>();
+            for (Map.Entry<String, Double> entry : entries) {
+                keys.add(entry.getKey());
+                scores.put(entry.getKey(), entry.getValue());
+            }
+            this.keys = Collections.unmodifiableList(keys);
+            this.scores = Collections.unmodifiableMap(scores);
+            this.version = version;
+            this.timestamp = timestamp;
+        }
+
+        /**
+         * Gets the keys of the most popular items.
+         *
+         * @param limit maximum number of keys
+         * @return the keys, most popular first
+         */
+        public List<String> getTopKeys(int limit) {
+            return keys.subList(0, Math.min(limit, keys.size()));
+        }
+
+        /**
+         * Gets the decayed selection count of an item.
+         *
+         * @param key the key of the item
+         * @return the score, 0 if the item is not ranked
+         */
+        public double getScore(String key) {
+            return scores.getOrDefault(key, 0d);
+        }
+
+        /**
+         * Gets the number of the snapshot, increasing with each snapshot.
+         *
+         * @return the version
+         */
+        public long getVersion() {
+            return version;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.vaadin.flow.component.ComponentUtil;
+import com.vaadin.flow.component.UI;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track of the {@link AutosuggestCatalog}s already transferred to the
+ * browser of a UI, so each catalog is sent only once per page. For versions of
+ * an {@link AutosuggestCatalogSource}, only the latest version sent is kept,
+ * the superseded one is removed on both sides.
+ * <p>
+ * The state is kept per UI. A page reload of a preserved UI starts with an
+ * empty client registry, elements missing a catalog then request it with
+ * {@link #resend(UI, AutosuggestCatalog)}, which sends a catalog at most once
+ * per response however many elements request it.
+ */
+class SharedOptionsRegistry implements Serializable {
+
+    private final Set<String> sentCatalogs = new HashSet<>();
+    private final Map<String, String> sentSourceVersions = new HashMap<>();
+    private final Set<String> resentInResponse = new HashSet<>();
+
+    static SharedOptionsRegistry get(UI ui) {
+        SharedOptionsRegistry registry = ComponentUtil.getData(ui, SharedOptionsRegistry.class);
+        if (registry == null) {
+            registry = new SharedOptionsRegistry();
+            ComponentUtil.setData(ui, SharedOptionsRegistry.class, registry);
+        }
+        return registry;
+    }
+
+    void ensureSent(UI ui, AutosuggestCatalog<?> catalog) {
+        if (!sentCatalogs.add(catalog.getId())) return;
+        String superseded = catalog.getSourceId() == null ? null : sentSourceVersions.put(catalog.getSourceId(), catalog.getId());
+        if (superseded != null) sentCatalogs.remove(superseded);
+        // Components move to the latest version when attached, so no element waits for a superseded one
+        ui.getElement().executeJs(
+            "const c = customElements.get('vcf-autosuggest'); if (c && c.registerSharedOptions) c.registerSharedOptions($0, $1);"
+                + " if ($2 && c && c.unregisterSharedOptions) c.unregisterSharedOptions($2);",
+            catalog.getId(), catalog.toJson(), superseded);
+    }
+
+    /**
+     * Sends the catalog again, even if it was sent before. Repeated requests
+     * until the response is written are ignored, it already carries the
+     * catalog.
+     */
+    void resend(UI ui, AutosuggestCatalog<?> catalog) {
+        String id = catalog.getId();
+        if (!resentInResponse.add(id)) return;
+        ui.beforeClientResponse(ui, context -> resentInResponse.remove(id));
+        sentCatalogs.remove(id);
+        ensureSent(ui, catalog);
+    }
+
+    /**
+     * Removes a catalog no other component uses from the browser.
+     */
+    void release(UI ui, String id) {
+        if (!sentCatalogs.remove(id)) return;
+        ui.getElement().executeJs(
+            "const c = customElements.get('vcf-autosuggest'); if (c && c.unregisterSharedOptions) c.unregisterSharedOptions($0);", id);
+    }
+}
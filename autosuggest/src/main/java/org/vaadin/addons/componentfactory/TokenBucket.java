@@ -0,0 +1,144 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.VaadinSession;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket used to rate limit lazy queries.
+ * <p>
+ * Implemented as a generic cell rate algorithm: a single atomic "theoretical
+ * arrival time" is advanced by the emission interval for every permit, and a
+ * permit is refused when it would be more than the burst ahead of now.
+ * <p>
+ * The arrival time is relative to {@link System#nanoTime()}, whose origin
+ * differs between JVMs, so it is not serialized: a deserialized bucket starts
+ * again with its full burst available.
+ */
+class TokenBucket implements Serializable {
+
+    private static volatile TokenBucket global = null;
+    private static ScheduledExecutorService scheduler = null;
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private transient AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+
+    TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0) throw new IllegalArgumentException("permitsPerSecond must be positive");
+        if (burst < 1) throw new IllegalArgumentException("burst must be at least 1");
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.burstNanos = intervalNanos * burst;
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            long now = System.nanoTime();
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + intervalNanos;
+            if (next - now > burstNanos) return false;
+            if (theoreticalArrival.compareAndSet(current, next)) return true;
+        }
+    }
+
+    /**
+     * Gives back a permit acquired with {@link #tryAcquire()} that was not
+     * used because another bucket refused.
+     */
+    void release() {
+        theoreticalArrival.addAndGet(-intervalNanos);
+    }
+
+    /**
+     * Gets the time until the next permit becomes available.
+     */
+    long nanosUntilAvailable() {
+        long now = System.nanoTime();
+        return Math.max(0, theoreticalArrival.get() + intervalNanos - now - burstNanos);
+    }
+
+    static TokenBucket getGlobal() {
+        return global;
+    }
+
+    static void setGlobal(TokenBucket bucket) {
+        global = bucket;
+    }
+
+    static TokenBucket getSessionBucket(VaadinSession session) {
+        SessionBucket holder = session.getAttribute(SessionBucket.class);
+        return holder == null ? null : holder.bucket;
+    }
+
+    static void setSessionBucket(VaadinSession session, TokenBucket bucket) {
+        session.setAttribute(SessionBucket.class, bucket == null ? null : new SessionBucket(bucket));
+    }
+
+    static void schedule(Runnable task, long delayNanos) {
+        getScheduler().schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the scheduler of throttled query retries, started on first use and
+     * shut down with the Vaadin service, so that a redeployed application
+     * does not leave its thread (and class loader) behind.
+     */
+    private static synchronized ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "autosuggest-rate-limiter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            VaadinService service = VaadinService.getCurrent();
+            if (service != null) service.addServiceDestroyListener(event -> shutdownScheduler());
+        }
+        return scheduler;
+    }
+
+    static synchronized void shutdownScheduler() {
+        if (scheduler == null) return;
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    static class SessionBucket implements Serializable {
+        private final TokenBucket bucket;
+
+        SessionBucket(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+}
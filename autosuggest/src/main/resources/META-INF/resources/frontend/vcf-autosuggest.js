@@ -28,6 +28,37 @@ import '@vaadin/vaadin-lumo-styles/icons';
 import '@polymer/iron-icon';
 import './vcf-autosuggest-overlay';
 
+const FILTER_WORKER_SOURCE = `
+let searchStrs = [];
+let lowerSearchStrs = [];
+let last = null;
+onmessage = function(e) {
+    const d = e.data;
+    if (d.searchStrs) {
+        searchStrs = d.searchStrs;
+        lowerSearchStrs = d.lowerSearchStrs;
+        last = null;
+        return;
+    }
+    const strs = d.caseSensitive ? searchStrs : lowerSearchStrs;
+    const contains = d.mode == 'CONTAINS';
+    const refinement = last != null && last.mode == d.mode && last.caseSensitive == d.caseSensitive && d.needle.startsWith(last.needle);
+    const indices = [];
+    if (refinement) {
+        for (let j = 0; j < last.indices.length; j++) {
+            const i = last.indices[j];
+            if (contains ? strs[i].includes(d.needle) : strs[i].startsWith(d.needle)) indices.push(i);
+        }
+    } else if (d.mode == 'CONTAINS' || d.mode == 'STARTS_WITH') {
+        for (let i = 0; i < strs.length; i++) {
+            if (contains ? strs[i].includes(d.needle) : strs[i].startsWith(d.needle)) indices.push(i);
+        }
+    }
+    last = { mode: d.mode, caseSensitive: d.caseSensitive, needle: d.needle, indices: indices };
+    postMessage({ seq: d.seq, indices: indices });
+};
+`;
+
 /**
  * `<vcf-autosuggest>` Web Component with a text input that provides a panel of suggested options.
  * Provides features such as advanced customization, lazy loading and label generator.
@@ -61,6 +92,30 @@ import './vcf-autosuggest-overlay';
                 :host([read-only]) {
                     pointer-events: none;
                 }
+
+                [part='virtual-scroller'] {
+                    position: relative;
+                    overflow-y: auto;
+                    max-height: var(--vcf-autosuggest-virtual-list-height, 20em);
+                }
+
+                [part='virtual-scroller'][hidden] {
+                    display: none;
+                }
+
+                [part='virtual-scroller'] [part='option'] {
+                    position: absolute;
+                    left: 0;
+                    right: 0;
+                    top: 0;
+                    padding-left: 0.5em;
+                    padding-right: 0.5em;
+                    box-sizing: border-box;
+                }
+
+                [part='virtual-scroller'] [part='bold'] {
+                    font-weight: 600;
+                }
             </style>
             <div class="container">
                 <vaadin-text-field id="textField" on-focus="_textFieldFocused" label="[[label]]" placeholder="[[placeholder]]" theme$="[[theme]]"> </vaadin-text-field>
@@ -104,7 +159,7 @@ import './vcf-autosuggest-overlay';
                                 }
 
                                 [part='no-results']::after {
-                                    content: var(--x-no-results-msg);
+                                    content: var(--x-no-results-msg, 'No results');
                                 }
                             </style>
                             <vaadin-item disabled part="option" class="no-results">
@@ -120,7 +175,7 @@ import './vcf-autosuggest-overlay';
                                 }
 
                                 [part='input-length-below-minimum']::after {
-                                    content: var(--x-input-length-below-minimum-msg);
+                                    content: var(--x-input-length-below-minimum-msg, 'Please keep typing to trigger search ...');
                                 }
                             </style>
                             <vaadin-item disabled part="option" class="input-length-below-minimum">
@@ -128,7 +183,7 @@ import './vcf-autosuggest-overlay';
                             </vaadin-item>
                         </template>
 
-                        <template is="dom-if" if="[[!loading]]">
+                        <template is="dom-if" if="[[_showListOptions(loading, _virtualized, partialResults)]]">
                             <template is="dom-repeat" items="[[_optionsToDisplay]]" as="option">
                                 <template is="dom-if" if="[[!customItemTemplate]]">
                                     <style>
@@ -157,6 +212,9 @@ import './vcf-autosuggest-overlay';
                             </template>
                         </template>
                     </vaadin-list-box>
+                    <div id="virtualScroller" part="virtual-scroller" hidden$="[[!_showVirtualList(loading, _virtualized, partialResults)]]" on-scroll="_renderVirtualItems">
+                        <div id="virtualSpacer"></div>
+                    </div>
                     <div id="dropdownEndSlot" part="dropdown-end-slot" style="display: none; padding-left: 0.5em; padding-right: 0.5em;"></div>
                 </vcf-autosuggest-overlay>
         `;
@@ -183,12 +241,24 @@ import './vcf-autosuggest-overlay';
             caseSensitive: { type: Boolean, value: false },
             lazy: { type: Boolean, value: false },
             options: { type: Array, value: () => [] },
+            sharedOptionsId: { observer: '_sharedOptionsIdChanged', type: String, value: null },
             searchMatchingMode: { type: String, value: 'STARTS_WITH' },
             customizeOptionsForWhenValueIsNull: { type: Boolean, value: false },
             optionsForWhenValueIsNull: { type: Array, value: () => [] },
             disableSearchHighlighting: { type: Boolean, value: false },
             defaultOption: { type: Object, value: null },
             _optionsToDisplay: { type: Array, value: () => [] },
+            virtualizationThreshold: { type: Number, value: 100 },
+            filterWorkerThreshold: { type: Number, value: 20000 },
+            lazyCacheSize: { type: Number, value: 0 },
+            lazyCacheHitQuery: { type: String, value: null },
+            partialResults: { type: Boolean, value: false },
+            tracing: { type: Boolean, value: false },
+            rankedKeys: { type: Array, value: null },
+            traceSeq: { type: Number, value: 0 },
+            _virtualized: { type: Boolean, value: false },
+            _virtualItemHeight: { type: Number, value: 36 },
+            _virtualSelectedIndex: { type: Number, value: -1 },
             _savedValue: { type: String },
             _showNoResultsItem: { type: Boolean, value: false },
             _showInputLengthBelowMinimumItem: { type: Boolean, value: false },
@@ -219,6 +289,26 @@ import './vcf-autosuggest-overlay';
        ];
     }
 
+    /**
+     * Registers an options list shared by every `vcf-autosuggest` on the page
+     * whose `sharedOptionsId` is `id`. Elements waiting for it are updated.
+     */
+    static registerSharedOptions(id, options) {
+        VcfAutosuggest._sharedOptions[id] = options;
+        const waiting = VcfAutosuggest._sharedOptionsSubscribers[id] || [];
+        delete VcfAutosuggest._sharedOptionsSubscribers[id];
+        waiting.forEach(el => { if (el.sharedOptionsId == id) el.options = options; });
+    }
+
+    /**
+     * Removes a shared options list, e.g. a superseded catalog version.
+     * Elements already showing it keep their options.
+     */
+    static unregisterSharedOptions(id) {
+        delete VcfAutosuggest._sharedOptions[id];
+        delete VcfAutosuggest._sharedOptionsSubscribers[id];
+    }
+
     constructor() {
         super();
         this._boundSetOverlayPosition = this._setOverlayPosition.bind(this);
@@ -231,6 +321,24 @@ import './vcf-autosuggest-overlay';
             this._defaultOptionChanged(this.defaultOption);
     }
 
+    _sharedOptionsIdChanged(id) {
+        if (id == null) return;
+        const shared = VcfAutosuggest._sharedOptions[id];
+        if (shared) {
+            this.options = shared;
+        } else {
+            const waiting = VcfAutosuggest._sharedOptionsSubscribers[id] || [];
+            waiting.push(this);
+            VcfAutosuggest._sharedOptionsSubscribers[id] = waiting;
+            // Sent in the same response when new, otherwise the page was reloaded and the server must send it again
+            if (waiting.length == 1) setTimeout(() => {
+                const requester = (VcfAutosuggest._sharedOptionsSubscribers[id] || [])
+                    .find(el => el.sharedOptionsId == id && el.$server && el.$server.requestSharedOptions);
+                if (requester) requester.$server.requestSharedOptions(id);
+            }, 0);
+        }
+    }
+
     _loadingChanged(v) {
         this.loading = !v
         this.loading = v //FORCE RE-RENDER
@@ -275,6 +383,8 @@ import './vcf-autosuggest-overlay';
         this.addEventListener('keydown', this._onKeyDown.bind(this));
         this._overlayElement = this.$.autosuggestOverlay;
         this._optionsContainer = this.$.optionsContainer;
+        this._virtualScroller = this.$.virtualScroller;
+        this._virtualPool = [];
         this._overlayElement.addEventListener('vaadin-overlay-outside-click', ev => ev.preventDefault());
         this._dropdownEndSlot = this.$.dropdownEndSlot;
         this._dropdownEndSlot.addEventListener('click', ev => { ev.preventDefault(); ev.stopPropagation(); });
@@ -282,6 +392,12 @@ import './vcf-autosuggest-overlay';
 
     disconnectedCallback() {
         super.disconnectedCallback();
+        if(this._filterWorker) {
+            this._filterWorker.terminate();
+            this._filterWorker = null;
+            this._filterWorkerOptions = null;
+            this._filterWorkerPending = null;
+        }
         document.removeEventListener('click', this._boundOutsideClickHandler);
     }
 
@@ -295,6 +411,7 @@ import './vcf-autosuggest-overlay';
             this._selectedOption._setFocused(false);
             this._selectedOption = null;
         }
+        this._virtualSelectedIndex = -1;
         if (value.length > 0 && !this.opened) this.opened = true;
         else if (value.length == 0 && this.opened && !this.openDropdownOnClick) this.opened = false;
         this.dispatchEvent(
@@ -316,7 +433,17 @@ import './vcf-autosuggest-overlay';
         let _res = [];
         if(this.customizeOptionsForWhenValueIsNull && (value == null || value.length == 0 || value.trim() == (this._hasDefaultOption() ? this._defaultOption.label : '').trim()))
             _res = _res.concat(this._limitOptions(this.optionsForWhenValueIsNull));
+        else if(this._useFilterWorker(options, value)) {
+            this._filterInWorker(options, value, filtered => this._displayOptions(this._limitOptions(filtered), value));
+            return;
+        }
         else _res = _res.concat(this._limitOptions(this._filterOptions(options, value)));
+        // A worker result still on its way is outdated by this refresh
+        this._filterWorkerPending = null;
+        this._displayOptions(_res, value);
+    }
+
+    _displayOptions(_res, value) {
         if(!_res || _res==null) _res = [];
 
         // Criteria for showing the default option:
@@ -331,7 +458,10 @@ import './vcf-autosuggest-overlay';
                 _res.unshift({label: this._defaultOption.label, searchStr: this._defaultOption.searchStr, key: this._defaultOption.key});
         }
 
-        for(let i=0; i<_res.length; i++) { _res[i].optId = i; }
+        // Shared option objects are used by other elements too, so they get their own optId copy
+        if(this.sharedOptionsId != null) _res = _res.map((opt, i) => Object.assign({}, opt, { optId: i }));
+        else for(let i=0; i<_res.length; i++) { _res[i].optId = i; }
+        this._virtualized = this.virtualizationThreshold != null && this.virtualizationThreshold >= 0 && _res.length > this.virtualizationThreshold;
         this._optionsToDisplay = _res;
         this._loadingChanged(false);
         this._refreshMessageItemsState();
@@ -343,25 +473,169 @@ import './vcf-autosuggest-overlay';
 
     _limitOptions(options) {
         if(!options) return [];
+        options = this._rankOptions(options);
         if(this.limit != null) return options.slice(0, this.limit);
         else return options;
     }
 
+    /** Moves the options listed in rankedKeys first, in that order, keeping the order of the others. */
+    _rankOptions(options) {
+        if(!this.rankedKeys || this.rankedKeys.length == 0) return options;
+        if(this._rankIndexKeys !== this.rankedKeys) {
+            this._rankIndex = new Map(this.rankedKeys.map((key, i) => [key, i]));
+            this._rankIndexKeys = this.rankedKeys;
+        }
+        const ranked = [];
+        const rest = [];
+        options.forEach(opt => (this._rankIndex.has(opt.key) ? ranked : rest).push(opt));
+        if(ranked.length == 0) return options;
+        ranked.sort((a, b) => this._rankIndex.get(a.key) - this._rankIndex.get(b.key));
+        return ranked.concat(rest);
+    }
+
     _filterOptions(opts, v) {
         if(v == null || v.trim().length == 0 || v.trim() == (this._hasDefaultOption() ? this._defaultOption.label : '').trim()) return opts;
-        let res = opts.filter(opt => {
+        const needle = this._getFilterNeedle(v);
+        // When the query only extends the previous one, its matches are a subset of the previous matches
+        const last = this._lastFilter;
+        const narrowable = opts === this.options;
+        const source = narrowable && this._isRefinement(last, opts, needle) ? last.result : opts;
+        let res = source.filter(opt => {
             switch(this.searchMatchingMode) {
                 case "CONTAINS":
-                    return this.caseSensitive ? opt.searchStr.trim().includes(v.trim()) : opt.searchStr.trim().toLowerCase().includes(v.toLowerCase());
+                    return this.caseSensitive ? opt.searchStr.trim().includes(needle) : opt.searchStr.trim().toLowerCase().includes(needle);
                 case "STARTS_WITH":
-                    return this.caseSensitive ? opt.searchStr.trim().startsWith(v.trim()) : opt.searchStr.trim().toLowerCase().startsWith(v.trim().toLowerCase());
+                    return this.caseSensitive ? opt.searchStr.trim().startsWith(needle) : opt.searchStr.trim().toLowerCase().startsWith(needle);
                 default:
                     return false;
             }
         });
+        if(narrowable) this._lastFilter = { options: opts, mode: this.searchMatchingMode, caseSensitive: this.caseSensitive, needle: needle, result: res };
         return res;
     }
 
+    _getFilterNeedle(v) {
+        if(this.caseSensitive) return v.trim();
+        return this.searchMatchingMode == "CONTAINS" ? v.toLowerCase() : v.trim().toLowerCase();
+    }
+
+    _isRefinement(last, opts, needle) {
+        return last != null && last.options === opts && last.mode === this.searchMatchingMode &&
+            last.caseSensitive === this.caseSensitive && needle.startsWith(last.needle);
+    }
+
+    // -------- Keystroke tracing --------
+
+    _traceInput() {
+        // traceSeq is synchronized with the input value change event
+        this.traceSeq = this.traceSeq + 1;
+        this._traceStart = { seq: this.traceSeq, time: performance.now() };
+    }
+
+    /** Called by the server with the response refreshing the options of an input. */
+    _traceResponse(seq, serverMillis) {
+        this._traceRendered(seq, serverMillis);
+    }
+
+    _traceRendered(seq, serverMillis) {
+        const start = this._traceStart;
+        // Superseded by a newer input, or already reported
+        if(!start || start.seq !== seq) return;
+        this._traceStart = null;
+        const responded = serverMillis == null ? start.time : performance.now();
+        // The options are painted by the next frame
+        requestAnimationFrame(() => setTimeout(() => {
+            const rendered = performance.now();
+            this.dispatchEvent(new CustomEvent('vcf-autosuggest-trace', {
+                detail: { seq: seq, total: rendered - start.time, render: rendered - responded, server: serverMillis }
+            }));
+        }));
+    }
+
+    // -------- Lazy cache --------
+
+    _getLazyCacheKey(query) {
+        return this.caseSensitive + '|' + this.searchMatchingMode + '|' + query.trim();
+    }
+
+    _getLazyCachedOptions(query) {
+        if(!this._lazyCache || !(this.lazyCacheSize > 0)) return null;
+        const key = this._getLazyCacheKey(query);
+        const cached = this._lazyCache.get(key);
+        if(!cached) return null;
+        // Refresh the entry so eviction follows the same least recently used order as the server
+        this._lazyCache.delete(key);
+        this._lazyCache.set(key, cached);
+        return cached;
+    }
+
+    _storeLazyResult(query) {
+        if(!(this.lazyCacheSize > 0)) return;
+        if(!this._lazyCache) this._lazyCache = new Map();
+        const key = this._getLazyCacheKey(query);
+        this._lazyCache.delete(key);
+        this._lazyCache.set(key, this.options);
+        while(this._lazyCache.size > this.lazyCacheSize) this._lazyCache.delete(this._lazyCache.keys().next().value);
+    }
+
+    _clearLazyCache() {
+        if(this._lazyCache) this._lazyCache.clear();
+    }
+
+    // -------- Filter worker --------
+
+    _useFilterWorker(options, value) {
+        if(this.filterWorkerThreshold == null || this.filterWorkerThreshold < 0 || typeof Worker === 'undefined') return false;
+        if(!options || options.length <= this.filterWorkerThreshold || this._filterWorkerFailed) return false;
+        return !(value == null || value.trim().length == 0 || value.trim() == (this._hasDefaultOption() ? this._defaultOption.label : '').trim());
+    }
+
+    /**
+     * Filters very large option lists off the main thread. The worker keeps
+     * the search strings of the current options and its previous match set,
+     * so refinements of the previous query only scan that subset.
+     */
+    _filterInWorker(options, value, callback) {
+        try {
+            if(!this._filterWorker) {
+                const url = URL.createObjectURL(new Blob([FILTER_WORKER_SOURCE], { type: 'application/javascript' }));
+                this._filterWorker = new Worker(url);
+                URL.revokeObjectURL(url);
+                this._filterWorker.onmessage = e => {
+                    const pending = this._filterWorkerPending;
+                    // Results of an outdated query or option list are dropped
+                    if(!pending || pending.seq !== e.data.seq) return;
+                    this._filterWorkerPending = null;
+                    pending.callback(e.data.indices.map(i => pending.options[i]));
+                };
+                this._filterWorker.onerror = e => {
+                    // The worker cannot be used: filter on the main thread from now on, starting with the pending query
+                    e.preventDefault();
+                    const pending = this._filterWorkerPending;
+                    this._filterWorkerFailed = true;
+                    this._filterWorker.terminate();
+                    this._filterWorker = null;
+                    this._filterWorkerOptions = null;
+                    this._filterWorkerPending = null;
+                    if(pending) pending.callback(this._filterOptions(pending.options, pending.value));
+                };
+            }
+            if(this._filterWorkerOptions !== options) {
+                this._filterWorkerOptions = options;
+                const searchStrs = options.map(opt => opt.searchStr.trim());
+                this._filterWorker.postMessage({ searchStrs: searchStrs, lowerSearchStrs: searchStrs.map(s => s.toLowerCase()) });
+            }
+            const seq = (this._filterWorkerSeq || 0) + 1;
+            this._filterWorkerSeq = seq;
+            this._filterWorkerPending = { seq: seq, options: options, value: value, callback: callback };
+            this._filterWorker.postMessage({ seq: seq, needle: this._getFilterNeedle(value), mode: this.searchMatchingMode, caseSensitive: this.caseSensitive });
+        } catch(e) {
+            // e.g. blocked by a Content Security Policy: filter on the main thread from now on
+            this._filterWorkerFailed = true;
+            callback(this._filterOptions(options, value));
+        }
+    }
+
     _onKeyDown(event) {
         const key = event.key.replace(/^Arrow/, '');
         switch (key) {
@@ -414,13 +688,17 @@ import './vcf-autosuggest-overlay';
     }
 
     _onInput(event) {
-        if(event.target != null && event.target.value != null) {
-            this.inputValue = event.target.value.trim();
-        } else {
-            this.inputValue = '';
-        }
+        const value = (event.target != null && event.target.value != null) ? event.target.value.trim() : '';
+        // Must be set before inputValue, it is synchronized with the input value change event
+        const cached = this.lazy ? this._getLazyCachedOptions(value) : null;
+        this.lazyCacheHitQuery = cached ? value : null;
+        if(this.tracing) this._traceInput();
+        this.inputValue = value;
+        if(cached) this.options = cached;
         this._refreshOptionsToDisplay(this.options, this.inputValue)
-        if(this.lazy && this.inputValue.length >= this.minimumInputLengthToPerformLazyQuery) this.loading = true;
+        // Without a lazy request, the options are final once rendered here
+        if(this.tracing && (!this.lazy || cached || this.inputValue.length < this.minimumInputLengthToPerformLazyQuery)) this._traceRendered(this.traceSeq, null);
+        if(this.lazy && !cached && this.inputValue.length >= this.minimumInputLengthToPerformLazyQuery) this.loading = true;
         if(this.inputValue.length > 0) this.opened = true;
         this._refreshMessageItemsState();
     }
@@ -495,6 +773,7 @@ import './vcf-autosuggest-overlay';
     }
 
     _navigate(to) {
+        if (this._virtualized) return this._navigateVirtual(to);
         const items = this._optionsContainer.items.filter(item => !item.disabled);
         if (!items.length) return;
         const index = items.indexOf(this._selectedOption);
@@ -591,6 +870,13 @@ import './vcf-autosuggest-overlay';
     }
 
     _optionsToDisplayChanged(otd, opened) {
+        if(this._virtualized) {
+            this._virtualSelectedIndex = -1;
+            this._virtualItemMeasured = false;
+            if(this._virtualScroller) this._virtualScroller.scrollTop = 0;
+            this._renderVirtualItems();
+            return;
+        }
         if(this.customItemTemplate) {
            this._renderOptionsCustomTemplateIfApplicable();
         }
@@ -624,6 +910,128 @@ import './vcf-autosuggest-overlay';
         }, 250);
     }
 
+    // -------- Virtual list --------
+
+    // With partial results, options arriving while loading are shown below the loading indicator
+    _showListOptions(loading, virtualized, partialResults) {
+        return (!loading || partialResults) && !virtualized;
+    }
+
+    _showVirtualList(loading, virtualized, partialResults) {
+        return (!loading || partialResults) && virtualized;
+    }
+
+    /**
+     * Renders only the rows of `_optionsToDisplay` visible in the virtual
+     * scroller, reusing the same pool of `vaadin-item` elements.
+     */
+    _renderVirtualItems() {
+        if(!this._virtualized || !this.opened || !this._virtualScroller) return;
+        const scroller = this._virtualScroller;
+        const options = this._optionsToDisplay;
+        const itemHeight = this._virtualItemHeight;
+        this.$.virtualSpacer.style.height = (options.length * itemHeight) + 'px';
+
+        const viewportHeight = scroller.clientHeight || parseFloat(getComputedStyle(scroller).maxHeight) || 320;
+        const overscan = 3;
+        const first = Math.max(0, Math.floor(scroller.scrollTop / itemHeight) - overscan);
+        const last = Math.min(options.length, Math.ceil((scroller.scrollTop + viewportHeight) / itemHeight) + overscan);
+
+        const templateFn = this._getVirtualTemplateFn();
+        let poolIndex = 0;
+        for(let index = first; index < last; index++, poolIndex++) {
+            const item = this._getVirtualPoolItem(poolIndex);
+            const option = options[index];
+            item.hidden = false;
+            item.style.transform = 'translateY(' + (index * itemHeight) + 'px)';
+            if(item._virtualIndex !== index || item._virtualOption !== option || item._virtualInput !== this.inputValue) {
+                item._virtualIndex = index;
+                item._virtualOption = option;
+                item._virtualInput = this.inputValue;
+                item.dataKey = option.key;
+                item.dataOid = option.optId;
+                if(templateFn) item.innerHTML = templateFn(option, item);
+                else this._renderVirtualLabel(item, option);
+            }
+            item._setFocused(index === this._virtualSelectedIndex);
+        }
+        for(; poolIndex < this._virtualPool.length; poolIndex++) {
+            this._virtualPool[poolIndex].hidden = true;
+            this._virtualPool[poolIndex]._virtualIndex = -1;
+        }
+
+        // Adjust to the real row height once the first row has been laid out, measured once per options change
+        // so that rows whose height depends on the layout cannot make it render again and again
+        if(this._virtualItemMeasured) return;
+        const measured = this._virtualPool.length > 0 ? this._virtualPool[0].offsetHeight : 0;
+        if(measured > 0) {
+            this._virtualItemMeasured = true;
+            if(measured !== itemHeight) {
+                this._virtualItemHeight = measured;
+                this._renderVirtualItems();
+            }
+        }
+    }
+
+    _getVirtualPoolItem(poolIndex) {
+        if(poolIndex < this._virtualPool.length) return this._virtualPool[poolIndex];
+        const item = document.createElement('vaadin-item');
+        item.setAttribute('part', 'option');
+        item.addEventListener('click', () => this._applyValue(item.dataKey));
+        this._virtualScroller.appendChild(item);
+        this._virtualPool.push(item);
+        return item;
+    }
+
+    _getVirtualTemplateFn() {
+        if(!this.customItemTemplate) return null;
+        if(this.__virtualTemplateSource !== this.customItemTemplate) {
+            this.__virtualTemplateSource = this.customItemTemplate;
+            this.__virtualTemplateFn = eval('(' + this.customItemTemplate + ')');
+        }
+        return this.__virtualTemplateFn;
+    }
+
+    _renderVirtualLabel(item, option) {
+        while(item.firstChild) item.removeChild(item.firstChild);
+        const value = this.inputValue;
+        const start = this._getSuggestedStart(value, option);
+        const inputted = this._getInputtedPart(value, option);
+        const end = this._getSuggestedEnd(value, option);
+        if(start) item.appendChild(document.createTextNode(start));
+        if(inputted) {
+            const bold = document.createElement('span');
+            bold.setAttribute('part', 'bold');
+            bold.textContent = inputted;
+            item.appendChild(bold);
+        }
+        if(end) item.appendChild(document.createTextNode(end));
+    }
+
+    _navigateVirtual(to) {
+        const count = this._optionsToDisplay.length;
+        if(!count) return;
+        let index = this._virtualSelectedIndex;
+        if(index === -1) this._savedValue = this.inputValue;
+        if(to === 'next') index = index + 1 > count - 1 ? 0 : index + 1;
+        else if(to === 'prev') index = index - 1 < 0 ? count - 1 : index - 1;
+        this._virtualSelectedIndex = index;
+
+        // Keep the selected row inside the viewport
+        const scroller = this._virtualScroller;
+        const top = index * this._virtualItemHeight;
+        if(top < scroller.scrollTop) scroller.scrollTop = top;
+        else if(top + this._virtualItemHeight > scroller.scrollTop + scroller.clientHeight)
+            scroller.scrollTop = top + this._virtualItemHeight - scroller.clientHeight;
+        this._renderVirtualItems();
+
+        // Rows are recycled, so the selection is tracked by index and a stand-in keeps the key when scrolled away
+        const option = this._optionsToDisplay[index];
+        const rendered = this._virtualPool.find(item => item._virtualIndex === index);
+        this._selectedOption = rendered || { dataKey: option.key, value: option.label, _setFocused: () => {} };
+        return option.label;
+    }
+
     _textFieldFocus(focus=true) {
         if(typeof this.$ === 'undefined') return;
         if (focus)
@@ -633,6 +1041,9 @@ import './vcf-autosuggest-overlay';
     }
 }
 
+VcfAutosuggest._sharedOptions = {};
+VcfAutosuggest._sharedOptionsSubscribers = {};
+
 customElements.define(VcfAutosuggest.is, VcfAutosuggest);
 
 /**
@@ -0,0 +1,92 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class AutosuggestIndexTest {
+
+    private final AutosuggestIndex<String> index = index("Mango", "mandarin", "Melon", "Lemon", "Lime", "Manila MANGO");
+
+    @Test
+    public void startsWithIgnoresCase() {
+        assertEquals(Arrays.asList("mandarin", "Mango", "Manila MANGO"), keys(index.search("MAN", Autosuggest.SearchMatchingMode.STARTS_WITH, false, 10)));
+    }
+
+    @Test
+    public void containsIgnoresCase() {
+        assertEquals(Arrays.asList("Mango", "Manila MANGO"), keys(index.search("ango", Autosuggest.SearchMatchingMode.CONTAINS, false, 10)));
+        assertEquals(Arrays.asList("Lemon"), keys(index.search("EMO", Autosuggest.SearchMatchingMode.CONTAINS, false, 10)));
+    }
+
+    @Test
+    public void caseSensitiveMatchesOriginalSearchStrings() {
+        assertEquals(Arrays.asList("mandarin"), keys(index.search("man", Autosuggest.SearchMatchingMode.STARTS_WITH, true, 10)));
+        assertEquals(Arrays.asList("Manila MANGO"), keys(index.search("MANGO", Autosuggest.SearchMatchingMode.CONTAINS, true, 10)));
+    }
+
+    @Test
+    public void caseSensitiveMismatchesDoNotCountTowardsLimit() {
+        // "mandarin" sorts first ignoring case, but does not match case-sensitively
+        assertEquals(Arrays.asList("Mango"), keys(index.search("Man", Autosuggest.SearchMatchingMode.STARTS_WITH, true, 1)));
+    }
+
+    @Test
+    public void limitsResults() {
+        assertEquals(2, index.search("m", Autosuggest.SearchMatchingMode.STARTS_WITH, false, 2).size());
+    }
+
+    @Test
+    public void emptyQueryMatchesAll() {
+        assertEquals(index.size(), index.search(" ", Autosuggest.SearchMatchingMode.STARTS_WITH, false, 100).size());
+        assertEquals(index.size(), index.search(null, Autosuggest.SearchMatchingMode.CONTAINS, false, 100).size());
+    }
+
+    @Test
+    public void normalizesWithRootLocale() {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            AutosuggestIndex<String> turkish = index("IMAGE", "Item");
+            assertEquals(Arrays.asList("IMAGE", "Item"), keys(turkish.search("i", Autosuggest.SearchMatchingMode.STARTS_WITH, false, 10)));
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    private static AutosuggestIndex<String> index(String... items) {
+        List<Autosuggest.Option<String>> options = new ArrayList<>();
+        for (String item : items) options.add(new Autosuggest.Option<>(item, item, item, item));
+        return new AutosuggestIndex<>(options);
+    }
+
+    private static List<String> keys(Map<String, Autosuggest.Option<String>> result) {
+        return new ArrayList<>(result.keySet());
+    }
+}
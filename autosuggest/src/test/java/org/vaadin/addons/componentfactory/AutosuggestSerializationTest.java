@@ -0,0 +1,136 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.vaadin.flow.server.Constants;
+import com.vaadin.flow.server.DefaultDeploymentConfiguration;
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.VaadinServletService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class AutosuggestSerializationTest {
+
+    private static final List<String> ITEMS = Arrays.asList("apple", "banana", "cherry");
+
+    @Before
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty(Constants.SERVLET_PARAMETER_PRODUCTION_MODE, "true");
+        properties.setProperty(Constants.SERVLET_PARAMETER_COMPATIBILITY_MODE, "false");
+        VaadinService.setCurrent(new VaadinServletService(null,
+            new DefaultDeploymentConfiguration(AutosuggestSerializationTest.class, properties)));
+    }
+
+    @After
+    public void tearDown() {
+        VaadinService.setCurrent(null);
+    }
+
+    @Test
+    public void defaultModeKeepsAllItems() throws Exception {
+        Autosuggest<String> autosuggest = create();
+        autosuggest.setItems(ITEMS);
+        select(autosuggest, "banana");
+
+        Autosuggest<String> restored = roundTrip(autosuggest);
+        assertEquals(new HashSet<>(ITEMS), restored.getItems().keySet());
+        assertEquals("banana", restored.getValue());
+    }
+
+    @Test
+    public void compactModeKeepsSelectedOptionOnly() throws Exception {
+        Autosuggest<String> autosuggest = create();
+        autosuggest.setCompactSerialization(true);
+        autosuggest.setItems(ITEMS);
+        select(autosuggest, "banana");
+
+        Autosuggest<String> restored = roundTrip(autosuggest);
+        assertTrue(restored.isCompactSerialization());
+        assertEquals(Collections.singleton("banana"), restored.getItems().keySet());
+        assertEquals("banana", restored.getValue());
+        assertEquals("banana", restored.getValueKey());
+    }
+
+    @Test
+    public void compactModeWithoutSelectionKeepsNoItems() throws Exception {
+        Autosuggest<String> autosuggest = create();
+        autosuggest.setCompactSerialization(true);
+        autosuggest.setItems(ITEMS);
+
+        Autosuggest<String> restored = roundTrip(autosuggest);
+        assertTrue(restored.getItems().isEmpty());
+        assertNull(restored.getValue());
+    }
+
+    @Test
+    public void registeredCatalogIsRestoredById() throws Exception {
+        AutosuggestCatalog<String> catalog = new AutosuggestCatalog<>("serialization-test", ITEMS);
+        AutosuggestCatalogRegistry.register(catalog);
+        try {
+            Autosuggest<String> autosuggest = create();
+            autosuggest.setCompactSerialization(true);
+            autosuggest.setItems(catalog);
+            select(autosuggest, "cherry");
+
+            Autosuggest<String> restored = roundTrip(autosuggest);
+            assertSame(catalog, restored.getCatalog().orElse(null));
+            assertEquals(new HashSet<>(ITEMS), restored.getItems().keySet());
+            assertEquals("cherry", restored.getValue());
+        } finally {
+            AutosuggestCatalogRegistry.unregister(catalog.getId());
+        }
+    }
+
+    private static Autosuggest<String> create() {
+        return new Autosuggest<>(new HeadlessTemplateParser(), false);
+    }
+
+    private static void select(Autosuggest<String> autosuggest, String key) {
+        // Set by the client when an option is picked
+        autosuggest.getElement().setProperty("selectedValue", key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(T object) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (T) in.readObject();
+        }
+    }
+}
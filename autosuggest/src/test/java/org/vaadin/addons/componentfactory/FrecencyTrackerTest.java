@@ -0,0 +1,87 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FrecencyTrackerTest {
+
+    private static final long HALF_LIFE_MILLIS = 1000;
+
+    @Test
+    public void repeatedSelectionsRankFirst() {
+        FrecencyTracker<String> tracker = new FrecencyTracker<>(10, HALF_LIFE_MILLIS);
+        long now = System.currentTimeMillis();
+        tracker.record("a", "apple", now);
+        tracker.record("b", "banana", now);
+        tracker.record("b", "banana", now);
+
+        assertEquals(Arrays.asList("b", "a"), tracker.getTopKeys(10));
+        assertEquals("banana", tracker.getTopItems(1).get("b"));
+        assertEquals(2, tracker.size());
+    }
+
+    @Test
+    public void scoresDecayWithHalfLife() {
+        FrecencyTracker<String> tracker = new FrecencyTracker<>(10, HALF_LIFE_MILLIS);
+        long now = System.currentTimeMillis();
+        // Four old selections count less than one recent selection
+        for (int i = 0; i < 4; i++) tracker.record("old", "old", now - 10 * HALF_LIFE_MILLIS);
+        tracker.record("new", "new", now);
+
+        assertEquals(Arrays.asList("new", "old"), tracker.getTopKeys(10));
+        assertEquals(4.0 / 1024, tracker.getScore("old"), 0.001);
+        assertEquals(0, tracker.getScore("missing"), 0);
+    }
+
+    @Test
+    public void evictsLowestScoreWhenFull() {
+        FrecencyTracker<String> tracker = new FrecencyTracker<>(8, HALF_LIFE_MILLIS);
+        long start = System.currentTimeMillis() - 100 * 10;
+        for (int i = 0; i < 100; i++) tracker.record("key" + i, "item" + i, start + i * 10);
+
+        assertEquals(8, tracker.size());
+        List<String> expected = new ArrayList<>();
+        for (int i = 99; i >= 92; i--) expected.add("key" + i);
+        assertEquals(expected, tracker.getTopKeys(100));
+        // Every remaining entry is still found after the evictions shifted the probe sequences
+        for (String key : expected) assertTrue(key, tracker.getScore(key) > 0);
+    }
+
+    @Test
+    public void topKeysAreLimited() {
+        FrecencyTracker<String> tracker = new FrecencyTracker<>(10, HALF_LIFE_MILLIS);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) tracker.record("key" + i, "item" + i, now);
+        assertEquals(2, tracker.getTopKeys(2).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveMaxEntries() {
+        new FrecencyTracker<String>(0, HALF_LIFE_MILLIS);
+    }
+}
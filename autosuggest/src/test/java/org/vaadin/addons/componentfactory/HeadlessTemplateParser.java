@@ -0,0 +1,47 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.vaadin.flow.component.polymertemplate.PolymerTemplate;
+import com.vaadin.flow.component.polymertemplate.TemplateData;
+import com.vaadin.flow.component.polymertemplate.TemplateParser;
+import com.vaadin.flow.server.VaadinService;
+import org.jsoup.nodes.Element;
+
+import java.io.Serializable;
+
+/**
+ * Provides the elements of the vcf-autosuggest template mapped with
+ * <code>@Id</code>, instead of parsing the frontend bundle, to create
+ * {@link Autosuggest} headless in tests. Shared with the benchmarks through
+ * the test jar.
+ */
+class HeadlessTemplateParser implements TemplateParser, Serializable {
+
+    @Override
+    public TemplateData getTemplateContent(Class<? extends PolymerTemplate<?>> clazz, String tag, VaadinService service) {
+        Element template = new Element("template");
+        template.appendElement("vaadin-text-field").attr("id", "textField");
+        Element overlay = template.appendElement("vcf-autosuggest-overlay").attr("id", "autosuggestOverlay");
+        overlay.appendElement("div").attr("id", "dropdownEndSlot");
+        return new TemplateData("vcf-autosuggest.js", template);
+    }
+}
@@ -0,0 +1,90 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class InProcessLazyResultCacheTest {
+
+    @Test
+    public void returnsPutEntry() {
+        InProcessLazyResultCache cache = new InProcessLazyResultCache(10);
+        cache.put("catalog", "ma", options("mango"));
+
+        Optional<List<CachedOption>> hit = cache.get("catalog", "ma").join();
+        assertTrue(hit.isPresent());
+        assertEquals("mango", hit.get().get(0).getKey());
+        assertFalse(cache.get("other", "ma").join().isPresent());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedEntryOverAllNamespaces() {
+        InProcessLazyResultCache cache = new InProcessLazyResultCache(2);
+        cache.put("a", "ma", options("mango"));
+        cache.put("b", "ma", options("mandarin"));
+        cache.get("a", "ma").join();
+        cache.put("c", "ma", options("manila"));
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.get("a", "ma").join().isPresent());
+        assertFalse(cache.get("b", "ma").join().isPresent());
+        assertTrue(cache.get("c", "ma").join().isPresent());
+    }
+
+    @Test
+    public void expiresEntriesAfterTimeToLive() throws InterruptedException {
+        InProcessLazyResultCache cache = new InProcessLazyResultCache(10, 100);
+        cache.put("catalog", "ma", options("mango"));
+        assertTrue(cache.get("catalog", "ma").join().isPresent());
+
+        Thread.sleep(150);
+        assertFalse(cache.get("catalog", "ma").join().isPresent());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void invalidatesNamespace() {
+        InProcessLazyResultCache cache = new InProcessLazyResultCache(10);
+        cache.put("a", "ma", options("mango"));
+        cache.put("a", "pa", options("papaya"));
+        cache.put("b", "ma", options("mandarin"));
+        cache.invalidate("a").join();
+
+        assertFalse(cache.get("a", "ma").join().isPresent());
+        assertFalse(cache.get("a", "pa").join().isPresent());
+        assertTrue(cache.get("b", "ma").join().isPresent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnboundedSize() {
+        new InProcessLazyResultCache(0);
+    }
+
+    private static List<CachedOption> options(String key) {
+        return Collections.singletonList(new CachedOption(key, key, key, new byte[0]));
+    }
+}
@@ -0,0 +1,97 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LazyCircuitBreakerTest {
+
+    private static final long COOLDOWN_MILLIS = 200;
+
+    @Test
+    public void opensAfterConsecutiveFailures() {
+        LazyCircuitBreaker breaker = new LazyCircuitBreaker(3, COOLDOWN_MILLIS);
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.isOpen());
+
+        breaker.recordFailure();
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void successResetsFailureCount() {
+        LazyCircuitBreaker breaker = new LazyCircuitBreaker(2, COOLDOWN_MILLIS);
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    public void lateFailuresDoNotExtendOpenCircuit() throws InterruptedException {
+        LazyCircuitBreaker breaker = new LazyCircuitBreaker(1, COOLDOWN_MILLIS);
+        breaker.recordFailure();
+        Thread.sleep(COOLDOWN_MILLIS / 2);
+        // Outcome of a call made before the circuit opened
+        breaker.recordFailure();
+        Thread.sleep(COOLDOWN_MILLIS / 2 + 50);
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void halfOpenAdmitsSingleTrial() throws InterruptedException {
+        LazyCircuitBreaker breaker = openAndWait();
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+        assertTrue(breaker.isOpen());
+    }
+
+    @Test
+    public void successfulTrialClosesCircuit() throws InterruptedException {
+        LazyCircuitBreaker breaker = openAndWait();
+        assertTrue(breaker.allowRequest());
+        breaker.recordSuccess();
+        assertFalse(breaker.isOpen());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void failedTrialReopensCircuit() throws InterruptedException {
+        LazyCircuitBreaker breaker = openAndWait();
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure();
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.allowRequest());
+    }
+
+    private static LazyCircuitBreaker openAndWait() throws InterruptedException {
+        LazyCircuitBreaker breaker = new LazyCircuitBreaker(1, COOLDOWN_MILLIS);
+        breaker.recordFailure();
+        assertFalse(breaker.allowRequest());
+        Thread.sleep(COOLDOWN_MILLIS + 50);
+        return breaker;
+    }
+}
@@ -0,0 +1,74 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class LazyQueryCacheTest {
+
+    @Test
+    public void evictsLeastRecentlyUsedQuery() {
+        LazyQueryCache<String> cache = new LazyQueryCache<>(2);
+        cache.put("a", options("apple"));
+        cache.put("b", options("banana"));
+        cache.get("a");
+        cache.put("c", options("cherry"));
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.containsKey("a"));
+        assertFalse(cache.containsKey("b"));
+        assertTrue(cache.containsKey("c"));
+    }
+
+    @Test
+    public void keyCombinesTrimmedQueryWithSearchSettings() {
+        assertEquals(LazyQueryCache.key("ma ", false, "STARTS_WITH"), LazyQueryCache.key(" ma", false, "STARTS_WITH"));
+        assertNotEquals(LazyQueryCache.key("ma", false, "STARTS_WITH"), LazyQueryCache.key("ma", true, "STARTS_WITH"));
+        assertNotEquals(LazyQueryCache.key("ma", false, "STARTS_WITH"), LazyQueryCache.key("ma", false, "CONTAINS"));
+    }
+
+    @Test
+    public void snapshotIsNotChangedByLaterUpdates() {
+        Map<String, Autosuggest.Option<String>> live = options("apple");
+        Map<String, Autosuggest.Option<String>> snapshot = LazyQueryCache.snapshot(live);
+        live.clear();
+        live.putAll(options("banana"));
+
+        assertEquals(1, snapshot.size());
+        assertTrue(snapshot.containsKey("apple"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void snapshotIsUnmodifiable() {
+        LazyQueryCache.snapshot(options("apple")).clear();
+    }
+
+    private static Map<String, Autosuggest.Option<String>> options(String... items) {
+        Map<String, Autosuggest.Option<String>> options = new HashMap<>();
+        for (String item : items) options.put(item, new Autosuggest.Option<>(item, item, item, item));
+        return options;
+    }
+}
@@ -0,0 +1,84 @@
+package org.vaadin.addons.componentfactory;
+
+/*
+ * #%L
+ * VCF Enhanced Combobox for Vaadin 14+
+ * %%
+ * Copyright (C) 2021 Vaadin Ltd
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class LazyQueryCoalescerTest {
+
+    @Test
+    public void identicalQueriesShareOneCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> first = LazyQueryCoalescer.execute("provider", "ma", () -> {
+            calls.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<String> second = LazyQueryCoalescer.execute("provider", "ma", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+
+        assertSame(first, second);
+        pending.complete("result");
+        assertEquals("result", second.get());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void differentQueriesAndProvidersAreNotShared() {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> first = LazyQueryCoalescer.execute("provider", "ma", () -> pending);
+        CompletableFuture<String> otherQuery = LazyQueryCoalescer.execute("provider", "mb", () -> pending);
+        CompletableFuture<String> otherProvider = LazyQueryCoalescer.execute("other", "ma", () -> pending);
+
+        assertNotSame(first, otherQuery);
+        assertNotSame(first, otherProvider);
+        assertNotSame(otherQuery, otherProvider);
+        pending.complete("done");
+    }
+
+    @Test
+    public void completedQueryIsNotKept() throws Exception {
+        assertEquals("first", LazyQueryCoalescer.execute("provider", "kept", () -> CompletableFuture.completedFuture("first")).get());
+        assertEquals("second", LazyQueryCoalescer.execute("provider", "kept", () -> CompletableFuture.completedFuture("second")).get());
+    }
+
+    @Test
+    public void failingCallIsReportedAndRemoved() throws Exception {
+        CompletableFuture<String> failed = LazyQueryCoalescer.execute("provider", "failing", () -> {
+            throw new IllegalStateException("provider down");
+        });
+        try {
+            failed.get();
+            fail("Expected the failure of the call");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals("ok", LazyQueryCoalescer.execute("provider", "failing", () -> CompletableFuture.completedFuture("ok")).get());
+    }
+}